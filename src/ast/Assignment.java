@@ -15,6 +15,8 @@ public class Assignment extends Statement
 {
     private String variable;
     private Expression expr;
+    private int depth;
+    private int slot = -1;
 
     /**
      * Constructor for assigning instance variables
@@ -27,26 +29,80 @@ public class Assignment extends Statement
         expr = exp;
     }
 
+    /**
+     * Outputs the name of the assigned variable.
+     * @return the variable
+     */
+    public String getVariable()
+    {
+        return variable;
+    }
+
+    /**
+     * Outputs the assigned expression.
+     * @return the expression
+     */
+    public Expression getExpression()
+    {
+        return expr;
+    }
+
+    /**
+     * Records where the Resolver found the assigned variable.
+     * @param depth the number of Environments to walk up from the current one
+     * @param slot the slot of the variable in that Environment
+     */
+    public void resolve(int depth, int slot)
+    {
+        this.depth = depth;
+        this.slot = slot;
+    }
+
+    /**
+     * Outputs how many Environments up the Resolver found this variable.
+     * @return the depth, 0 for the current Environment
+     */
+    public int getDepth()
+    {
+        return depth;
+    }
+
+    /**
+     * Outputs the slot the Resolver gave this variable.
+     * @return the slot, or -1 if the variable has not been resolved
+     */
+    public int getSlot()
+    {
+        return slot;
+    }
+
     /**
      * Executes the assignment by adding the variable with the corresponding
-     * value to the environment env
+     * value to the environment env, or by writing its slot if it has been resolved
      *
      * @param env the environment to add the variable
      */
     public void exec(Environment env)
     {
-        env.setVariable(variable, expr.eval(env));
+        if (slot >= 0)
+            env.setSlot(depth, slot, expr.eval(env));
+        else
+            env.setVariable(variable, expr.eval(env));
     }
 
     /**
      * Compiles this assignment by  compiling the expression and then storing the value of
      * $v0 with the value of the expression into the word corresponding with the given
-     * variable
+     * variable, or into its stack slot if it is local to the current procedure
      * @param e The emitter that emits statements to the file
      */
     public void compile(Emitter e)
     {
         expr.compile(e);
-        e.emit("sw $v0, " + variable + " \t #assigns the value of the expression(in $v0) to " + variable);
+        if (e.isLocalVariable(variable))
+            e.emit("sw $v0, " + e.getLocalOffset(variable) + "($sp) \t #assigns the value of "
+                    + "the expression(in $v0) to local " + variable);
+        else
+            e.emit("sw $v0, " + variable + " \t #assigns the value of the expression(in $v0) to " + variable);
     }
 }
@@ -14,7 +14,15 @@ import environment.Environment;
  */
 public class BinOp extends Expression
 {
+    // operator codes, resolved once so eval does not compare strings
+    private static final int ADD = 0;
+    private static final int SUB = 1;
+    private static final int MUL = 2;
+    private static final int DIV = 3;
+    private static final int MOD = 4;
+
     private String op;
+    private int code;
     private Expression exp1;
     private Expression exp2;
 
@@ -24,12 +32,49 @@ public class BinOp extends Expression
      * @param op the operator
      * @param exp1 the first expression
      * @param exp2 the second expression
+     * @throws IllegalArgumentException if op is not an arithmetic operator
      */
     public BinOp(String op, Expression exp1, Expression exp2)
     {
         this.op = op;
         this.exp1 = exp1;
         this.exp2 = exp2;
+        switch (op)
+        {
+            case "+": code = ADD; break;
+            case "-": code = SUB; break;
+            case "*": code = MUL; break;
+            case "/": code = DIV; break;
+            case "%": code = MOD; break;
+            default: throw new IllegalArgumentException("unknown operator " + op);
+        }
+    }
+
+    /**
+     * Outputs the operator.
+     * @return the operator
+     */
+    public String getOperator()
+    {
+        return op;
+    }
+
+    /**
+     * Outputs the left operand.
+     * @return the first expression
+     */
+    public Expression getLeft()
+    {
+        return exp1;
+    }
+
+    /**
+     * Outputs the right operand.
+     * @return the second expression
+     */
+    public Expression getRight()
+    {
+        return exp2;
     }
 
     /**
@@ -39,23 +84,31 @@ public class BinOp extends Expression
      * 		exp1 + exp2
      * 		exp1 / exp2
      * 		exp1 * exp2
-     * 		var = exp2 (for which the method returns 0)
+     * 		exp1 % exp2
      * @param env the environment where they are evaluated
      */
     public int eval(Environment env)
     {
-        if (op == "-")
-            return exp1.eval(env) - exp2.eval(env);
-        else if (op == "+")
-            return exp1.eval(env) + exp2.eval(env);
-        else if (op == "/")
-            return exp1.eval(env) / exp2.eval(env);
-        else if (op == "*")
-            return exp1.eval(env) * exp2.eval(env);
-        else
+        int value1 = exp1.eval(env);
+        return apply(value1, exp2.eval(env));
+    }
+
+    /**
+     * Applies the operator to two values, using the operator code resolved when the
+     * BinOp was built. Interpreters that evaluate the operands themselves use this.
+     * @param value1 the value of the left operand
+     * @param value2 the value of the right operand
+     * @return the result
+     */
+    public int apply(int value1, int value2)
+    {
+        switch (code)
         {
-            env.setVariable(((Variable)exp1).getName(), exp2.eval(env));
-            return 0;
+            case ADD: return value1 + value2;
+            case SUB: return value1 - value2;
+            case MUL: return value1 * value2;
+            case DIV: return value1 / value2;
+            default: return value1 % value2;
         }
     }
 
@@ -81,7 +134,7 @@ public class BinOp extends Expression
             e.emitPush("$v0");
             exp2.compile(e);
             e.emitPop("$t0");
-            e.emit("subu $v0, $v0, $t0\t#subtracts $t0(exp1) and $v0(exp2)");
+            e.emit("subu $v0, $t0, $v0\t#subtracts $v0(exp2) from $t0(exp1)");
         }
         if (op.equals("*"))
         {
@@ -101,6 +154,15 @@ public class BinOp extends Expression
             e.emit("div $t0, $v0");
             e.emit("mflo $v0\t#divides $t0(exp1) and $v0(exp2)");
         }
+        if (op.equals("%"))
+        {
+            exp1.compile(e);
+            e.emitPush("$v0");
+            exp2.compile(e);
+            e.emitPop("$t0");
+            e.emit("div $t0, $v0");
+            e.emit("mfhi $v0\t#remainder of $t0(exp1) divided by $v0(exp2)");
+        }
 
     }
 }
\ No newline at end of file
@@ -25,6 +25,15 @@ public class Block extends Statement
         this.stmts = stmts;
     }
 
+    /**
+     * Outputs the statements of the block.
+     * @return the list of statements
+     */
+    public List<Statement> getStatements()
+    {
+        return stmts;
+    }
+
     /**
      * Executes the Block statement by executing every statement contained within the block
      * @param env The given environment
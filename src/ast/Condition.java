@@ -15,7 +15,16 @@ import environment.Environment;
  */
 public class Condition extends Expression
 {
+    // operator codes, resolved once so eval does not compare strings
+    private static final int EQ = 0;
+    private static final int NE = 1;
+    private static final int LT = 2;
+    private static final int GT = 3;
+    private static final int LE = 4;
+    private static final int GE = 5;
+
     private String operator;
+    private int code;
     private Expression expr1;
     private Expression expr2;
 
@@ -24,12 +33,50 @@ public class Condition extends Expression
      * @param e1
      * @param relOperator
      * @param e2
+     * @throws IllegalArgumentException if relOperator is not a relational operator
      */
     public Condition(String relOperator, Expression e1, Expression e2)
     {
         expr1 = e1;
         expr2 = e2;
         operator = relOperator;
+        switch (relOperator)
+        {
+            case "=": code = EQ; break;
+            case "<>": code = NE; break;
+            case "<": code = LT; break;
+            case ">": code = GT; break;
+            case "<=": code = LE; break;
+            case ">=": code = GE; break;
+            default: throw new IllegalArgumentException("unknown operator " + relOperator);
+        }
+    }
+
+    /**
+     * Outputs the relational operator.
+     * @return the operator
+     */
+    public String getOperator()
+    {
+        return operator;
+    }
+
+    /**
+     * Outputs the left operand.
+     * @return the first expression
+     */
+    public Expression getLeft()
+    {
+        return expr1;
+    }
+
+    /**
+     * Outputs the right operand.
+     * @return the second expression
+     */
+    public Expression getRight()
+    {
+        return expr2;
     }
 
     /**
@@ -41,27 +88,32 @@ public class Condition extends Expression
     public int eval(Environment env)
     {
         int value1 = expr1.eval(env);
-        int value2 = expr2.eval(env);
-        boolean stmt;
-
-        if (this.operator.equals("="))
-            stmt = value1 == value2;
-        else if (this.operator.equals("<>"))
-            stmt = value1 != value2;
-        else if (this.operator.equals("<"))
-            stmt = value1 < value2;
-        else if (this.operator.equals(">"))
-            stmt = value1 > value2;
-        else if (this.operator.equals("<="))
-            stmt = value1 <= value2;
-        else
-            stmt = value1 >= value2;
-
-        if (stmt)
+        if (compare(value1, expr2.eval(env)))
             return 1;
         return 0;
     }
 
+    /**
+     * Compares two values with the relational operator, using the operator code resolved
+     * when the Condition was built. Interpreters that evaluate the operands themselves
+     * use this.
+     * @param value1 the value of the left operand
+     * @param value2 the value of the right operand
+     * @return true if the relation holds
+     */
+    public boolean compare(int value1, int value2)
+    {
+        switch (code)
+        {
+            case EQ: return value1 == value2;
+            case NE: return value1 != value2;
+            case LT: return value1 < value2;
+            case GT: return value1 > value2;
+            case LE: return value1 <= value2;
+            default: return value1 >= value2;
+        }
+    }
+
     /**
      * Compiles the condition by first compiling the two expressions and storing them in $t0 and
      * $v0. Then, a branch statement is emitted corresponding to the operator. For example, beq
@@ -47,6 +47,33 @@ public class If extends Statement
         this.elses = elses;
     }
 
+    /**
+     * Outputs the condition.
+     * @return the condition
+     */
+    public Condition getCondition()
+    {
+        return condition;
+    }
+
+    /**
+     * Outputs the statement run when the condition is true.
+     * @return the then statement
+     */
+    public Statement getStatement()
+    {
+        return statement;
+    }
+
+    /**
+     * Outputs the statement run when the condition is false.
+     * @return the else statement, or null if there is none
+     */
+    public Statement getElse()
+    {
+        return elses;
+    }
+
     /**
      * Evaluates the if statement by running the then statement if the condition is true. If
      * it is false, it runs the "elses" statement if the if statement has an ELSE
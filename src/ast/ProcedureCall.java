@@ -4,6 +4,7 @@ import java.util.List;
 
 import emitter.Emitter;
 import environment.Environment;
+import environment.MemoTable;
 
 /**
  * A ProcedureCall can keep track of its String id and a list of
@@ -16,6 +17,7 @@ public class ProcedureCall extends Expression
 {
     private String id;
     private List<Expression> args;
+    private ProcedureDeclaration declaration;
 
     /**
      * Constructor for a ProcedureCall which stores a string
@@ -30,20 +32,88 @@ public class ProcedureCall extends Expression
     }
 
     /**
-     * This method helps evaluate a ProcedureCall. It creates a new
-     * environment to track local variables. ProcedureDeclaration takes
-     * the names of the arguments. The statement associated with it is
-     * executed to return the procedure variable's value.
+     * Outputs the name of the called procedure.
+     * @return the id
+     */
+    public String getId()
+    {
+        return id;
+    }
+
+    /**
+     * Outputs the argument expressions.
+     * @return the list of arguments
+     */
+    public List<Expression> getArgs()
+    {
+        return args;
+    }
+
+    /**
+     * Records the declaration the Resolver found for this call.
+     * @param decl the called ProcedureDeclaration
+     */
+    public void setDeclaration(ProcedureDeclaration decl)
+    {
+        declaration = decl;
+    }
+
+    /**
+     * Outputs the declaration the Resolver found for this call.
+     * @return the called ProcedureDeclaration, or null if the call has not been resolved
+     */
+    public ProcedureDeclaration getDeclaration()
+    {
+        return declaration;
+    }
+
+    /**
+     * This method helps evaluate a ProcedureCall. A resolved call runs the procedure in
+     * a frame of slots taken from the global environment's pool: slot 0 is the
+     * procedure variable, the arguments follow, then the locals. If the procedure is
+     * pure and memoization is on, a remembered result for the same arguments is used
+     * instead. An unresolved call instead creates new environments for the procedure
+     * variable and arguments and for the local variables, so the declaration itself is
+     * never changed. ProcedureDeclaration takes the names of the arguments. The
+     * statement associated with it is executed to return the procedure variable's value.
      *
      * @param env  the parent environment for the procedure being executed.
      * @return the integer procedure variable's value
      */
     public int eval(Environment env)
     {
+        if (declaration != null)
+        {
+            Environment root = env.getRoot();
+            Environment frame = root.pushFrame(declaration.getFrameSize());
+            try
+            {
+                for (int i = 0; i < args.size(); i++)
+                    frame.setSlot(0, 1 + i, args.get(i).eval(env));
+                MemoTable memo = declaration.isPure() ? root.getMemo() : null;
+                if (memo == null)
+                {
+                    declaration.getStmt().exec(frame);
+                    return frame.getSlot(0, 0);
+                }
+                int[] values = new int[args.size()];
+                for (int i = 0; i < values.length; i++)
+                    values[i] = frame.getLocal(1 + i);
+                Integer result = memo.get(declaration, values);
+                if (result != null)
+                    return result;
+                declaration.getStmt().exec(frame);
+                memo.put(declaration, values, frame.getLocal(0));
+                return frame.getLocal(0);
+            }
+            finally
+            {
+                root.popFrame();
+            }
+        }
         Environment newEnvironment = new Environment(env);
-        env.declareVariable(id, 0);
+        newEnvironment.declareVariable(id, 0);
         ProcedureDeclaration declaration = env.getProcedure(id);
-        declaration.getEnv().setParent(newEnvironment);
         List<String> argVars = declaration.getArgs();
         if (argVars!=null && args!=null)
         {
@@ -52,13 +122,16 @@ public class ProcedureCall extends Expression
             for (int i=0; i<argVars.size(); i++)
                 newEnvironment.declareVariable(argVars.get(i), args.get(i).eval(env));
         }
-        declaration.getStmt().exec(declaration.getEnv());
+        Environment locals = new Environment(newEnvironment);
+        for (String var : declaration.getVars())
+            locals.declareVariable(var, 0);
+        declaration.getStmt().exec(locals);
         return newEnvironment.getVariable(id);
     }
 
     /**
      * Compiles the ProcedureCall and jumps to the
-     * correct ProcedureDeclaration label in MIPS.
+     * correct ProcedureDeclaration label in MIPS. The callee pops the arguments.
      * @param e the Emitter used to print the MIPS code.
      */
     public void compile(Emitter e)
@@ -69,5 +142,6 @@ public class ProcedureCall extends Expression
             e.emitPush("$v0");
         }
         e.emit("jal proc"+id);
+        e.stackPopped(args.size());
     }
 }
\ No newline at end of file
@@ -10,6 +10,9 @@ import environment.Environment;
  * to the program beginning to store them in the environment's map. Once
  * stored, they can  be used for each ProcedureCall in statements afterwards.
  *
+ * A ProcedureDeclaration holds no state of any one execution: every call gets its own
+ * frame, so one declaration can be running in many calls and on many threads at once.
+ *
  * @author Montek Kalsi
  * @version 1/14/20
  */
@@ -17,9 +20,10 @@ public class ProcedureDeclaration extends Statement
 {
     private String id;
     private Statement stmt;
-    private Environment env;
     private List<String> args;
     private List<String> vars;
+    private int frameSize;
+    private boolean pure;
 
     /**
      * Instantiates a ProcedureDeclaration object storing its name as
@@ -73,12 +77,41 @@ public class ProcedureDeclaration extends Statement
     }
 
     /**
-     * Outputs the local environment.
-     * @return the environment env
+     * Outputs the number of slots in a frame of this procedure: its return value, its
+     * arguments and its local variables.
+     * @return the frame size
      */
-    public Environment getEnv()
+    public int getFrameSize()
     {
-        return env;
+        return frameSize;
+    }
+
+    /**
+     * Sets the number of slots in a frame of this procedure.
+     * @param size the frame size
+     */
+    public void setFrameSize(int size)
+    {
+        frameSize = size;
+    }
+
+    /**
+     * Checks whether the procedure is a pure function of its arguments, as decided by
+     * Purity when the program was resolved.
+     * @return true if it is pure
+     */
+    public boolean isPure()
+    {
+        return pure;
+    }
+
+    /**
+     * Marks the procedure as pure or impure.
+     * @param pure true if the procedure is a pure function of its arguments
+     */
+    public void setPure(boolean pure)
+    {
+        this.pure = pure;
     }
 
     /**
@@ -88,9 +121,6 @@ public class ProcedureDeclaration extends Statement
     public void exec(Environment e)
     {
         e.setProcedure(id, this);
-        env = new Environment(e);
-        for (String s : vars)
-            env.declareVariable(s, 0);
     }
 
     /**
@@ -108,7 +138,7 @@ public class ProcedureDeclaration extends Statement
         for (int i = 0; i <= vars.size() - 1; i++)
             e.emitPush("$t7");
         stmt.compile(e);
-        for (int i = 0; i <= args.size() - 1; i++)
+        for (int i = 0; i <= vars.size() - 1; i++)
             e.emitPop("$t7");
         e.emitPop("$ra");
         e.emitPop("$v0");
@@ -1,9 +1,11 @@
 package ast;
 
 import java.util.ArrayList;
+import java.util.List;
 
 import emitter.Emitter;
 import environment.Environment;
+import environment.Resolver;
 
 /**
  * A Program object stores a list of procedures and
@@ -17,6 +19,7 @@ public class Program extends Statement
     private ArrayList<ProcedureDeclaration> procedures;
     private ArrayList<String> variables;
     private Statement stmt;
+    private volatile List<String> globals;
 
     /**
      * Constructor for Program objects which instantiates
@@ -25,6 +28,34 @@ public class Program extends Statement
     public Program()
     {
         procedures = new ArrayList<ProcedureDeclaration>();
+        variables = new ArrayList<String>();
+    }
+
+    /**
+     * Outputs the main Statement.
+     * @return the Statement
+     */
+    public Statement getStatement()
+    {
+        return stmt;
+    }
+
+    /**
+     * Outputs the declared Procedures.
+     * @return the list of Procedures
+     */
+    public ArrayList<ProcedureDeclaration> getProcedures()
+    {
+        return procedures;
+    }
+
+    /**
+     * Outputs the declared global variables.
+     * @return the list of variables
+     */
+    public ArrayList<String> getVariables()
+    {
+        return variables;
     }
 
     /**
@@ -67,19 +98,62 @@ public class Program extends Statement
         variables = var;
     }
 
+    /**
+     * Outputs the global variables found by the Resolver, in slot order.
+     * @return the globals, or null if the program has not been resolved
+     */
+    public List<String> getGlobals()
+    {
+        return globals;
+    }
+
+    /**
+     * Sets the global variables found by the Resolver.
+     * @param names the globals, in slot order
+     */
+    public void setGlobals(List<String> names)
+    {
+        globals = names;
+    }
+
+    /**
+     * Resolves the program unless that has already been done. Resolution writes the
+     * slots into the nodes, so it happens once, under a lock, and the resolved Program
+     * is only read afterwards.
+     */
+    public synchronized void resolve()
+    {
+        if (globals == null)
+            Resolver.resolve(this);
+    }
+
     /**
      * Executes the Procedures within the list,
-     * then executing the Statement afterward.
+     * then executing the Statement afterward. The program is resolved first, so its
+     * globals are kept in slots of env and every variable is read by slot.
+     *
+     * All the state of a run is in env, so many threads can execute the same Program at
+     * once as long as each passes its own Environment. The output of env is flushed when
+     * the program ends, even if it ends with an exception.
      *
      * @param env the environment passed in
      */
     public void exec(Environment env)
     {
-        for(ProcedureDeclaration procedure : procedures)
+        resolve();
+        try
+        {
+            env.declareSlots(globals);
+            for(ProcedureDeclaration procedure : procedures)
+            {
+                env.setProcedure(procedure.getName(), procedure);
+            }
+            stmt.exec(env);
+        }
+        finally
         {
-            procedure.exec(env);
+            env.getOutput().flush();
         }
-        stmt.exec(env);
     }
 
     /**
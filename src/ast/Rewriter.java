@@ -0,0 +1,190 @@
+package ast;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A Rewriter builds a new Program from a resolved one, node by node, leaving the original
+ * unchanged. On its own it makes a plain copy; passes that transform programs extend it
+ * and override the methods for the nodes they change, calling back into the Rewriter for
+ * the nodes they do not. The copy keeps the resolution of the original: variables and
+ * assignments keep their slots, procedures their frame sizes and purity, and each call
+ * is linked to the copy of its procedure.
+ *
+ * @author Montek Kalsi
+ * @version 10/17/26
+ */
+public class Rewriter
+{
+    private Map<ProcedureDeclaration, ProcedureDeclaration> copies;
+    private List<ProcedureCall> calls;
+
+    /**
+     * Rewrites a Program, resolving it first if needed.
+     * @param program the program
+     * @return the rewritten program
+     */
+    public Program rewrite(Program program)
+    {
+        program.resolve();
+        copies = new HashMap<ProcedureDeclaration, ProcedureDeclaration>();
+        calls = new ArrayList<ProcedureCall>();
+        ArrayList<ProcedureDeclaration> procs = new ArrayList<ProcedureDeclaration>();
+        for (ProcedureDeclaration proc : program.getProcedures())
+        {
+            ProcedureDeclaration copy = procedure(proc);
+            copies.put(proc, copy);
+            procs.add(copy);
+        }
+        Program result = new Program();
+        result.setVariables(new ArrayList<String>(program.getVariables()));
+        result.setProcedure(procs);
+        result.setStatement(main(program.getStatement()));
+        result.setGlobals(program.getGlobals());
+        for (ProcedureCall call : calls)
+            call.setDeclaration(copies.get(call.getDeclaration()));
+        return result;
+    }
+
+    /**
+     * Rewrites a procedure.
+     * @param proc the procedure
+     * @return the new procedure
+     */
+    protected ProcedureDeclaration procedure(ProcedureDeclaration proc)
+    {
+        return copy(proc, statement(proc.getStmt()));
+    }
+
+    /**
+     * Copies a procedure with a new body, keeping its frame size and purity.
+     * @param proc the procedure
+     * @param body the new body
+     * @return the new procedure
+     */
+    protected static ProcedureDeclaration copy(ProcedureDeclaration proc, Statement body)
+    {
+        ProcedureDeclaration copy = new ProcedureDeclaration(proc.getName(), body,
+                proc.getArgs(), proc.getVars());
+        copy.setFrameSize(proc.getFrameSize());
+        copy.setPure(proc.isPure());
+        return copy;
+    }
+
+    /**
+     * Rewrites the main statement of the program.
+     * @param stmt the main statement
+     * @return the new main statement
+     */
+    protected Statement main(Statement stmt)
+    {
+        return statement(stmt);
+    }
+
+    /**
+     * Rewrites a statement by rewriting its parts.
+     * @param stmt the statement
+     * @return the new statement
+     * @throws IllegalArgumentException if the statement is of an unknown kind
+     */
+    protected Statement statement(Statement stmt)
+    {
+        if (stmt instanceof Writeln)
+            return new Writeln(expression(((Writeln) stmt).getExpression()));
+        if (stmt instanceof Assignment)
+        {
+            Assignment assign = (Assignment) stmt;
+            Assignment copy = new Assignment(assign.getVariable(),
+                    expression(assign.getExpression()));
+            copy.resolve(assign.getDepth(), assign.getSlot());
+            return copy;
+        }
+        if (stmt instanceof Block)
+        {
+            List<Statement> stmts = new ArrayList<Statement>();
+            for (Statement s : ((Block) stmt).getStatements())
+                stmts.add(statement(s));
+            return new Block(stmts);
+        }
+        if (stmt instanceof If)
+        {
+            If ifStmt = (If) stmt;
+            Condition cond = condition(ifStmt.getCondition());
+            if (ifStmt.getElse() == null)
+                return new If(cond, statement(ifStmt.getStatement()));
+            return new If(cond, statement(ifStmt.getStatement()),
+                    statement(ifStmt.getElse()));
+        }
+        if (stmt instanceof While)
+        {
+            While loop = (While) stmt;
+            return new While(condition(loop.getCondition()), statement(loop.getStatement()));
+        }
+        throw new IllegalArgumentException("cannot rewrite "
+                + stmt.getClass().getSimpleName());
+    }
+
+    /**
+     * Rewrites a condition by rewriting its operands.
+     * @param cond the condition
+     * @return the new condition
+     */
+    protected Condition condition(Condition cond)
+    {
+        return new Condition(cond.getOperator(), expression(cond.getLeft()),
+                expression(cond.getRight()));
+    }
+
+    /**
+     * Rewrites an expression by rewriting its parts.
+     * @param exp the expression
+     * @return the new expression
+     * @throws IllegalArgumentException if the expression is of an unknown kind
+     */
+    protected Expression expression(Expression exp)
+    {
+        if (exp instanceof Number)
+            return new Number(((Number) exp).getValue());
+        if (exp instanceof Variable)
+        {
+            Variable var = (Variable) exp;
+            Variable copy = new Variable(var.getName());
+            copy.resolve(var.getDepth(), var.getSlot());
+            return copy;
+        }
+        if (exp instanceof Condition)
+            return condition((Condition) exp);
+        if (exp instanceof BinOp)
+        {
+            BinOp bin = (BinOp) exp;
+            return new BinOp(bin.getOperator(), expression(bin.getLeft()),
+                    expression(bin.getRight()));
+        }
+        if (exp instanceof ProcedureCall)
+        {
+            ProcedureCall call = (ProcedureCall) exp;
+            List<Expression> args = new ArrayList<Expression>();
+            for (Expression arg : call.getArgs())
+                args.add(expression(arg));
+            return call(call, args);
+        }
+        throw new IllegalArgumentException("cannot rewrite "
+                + exp.getClass().getSimpleName());
+    }
+
+    /**
+     * Builds a call that will be linked to the copy of the original call's procedure.
+     * @param call the original call
+     * @param args the rewritten arguments
+     * @return the new call
+     */
+    protected ProcedureCall call(ProcedureCall call, List<Expression> args)
+    {
+        ProcedureCall copy = new ProcedureCall(call.getId(), args);
+        copy.setDeclaration(call.getDeclaration());
+        calls.add(copy);
+        return copy;
+    }
+}
@@ -14,6 +14,8 @@ import environment.Environment;
 public class Variable extends Expression
 {
     private String name;
+    private int depth;
+    private int slot = -1;
 
     /**
      * The constructor with name n passed in
@@ -34,23 +36,62 @@ public class Variable extends Expression
     }
 
     /**
-     * Evaluates in Environment env passed in and outputs name
+     * Records where the Resolver found this variable.
+     * @param depth the number of Environments to walk up from the current one
+     * @param slot the slot of the variable in that Environment
+     */
+    public void resolve(int depth, int slot)
+    {
+        this.depth = depth;
+        this.slot = slot;
+    }
+
+    /**
+     * Outputs how many Environments up the Resolver found this variable.
+     * @return the depth, 0 for the current Environment
+     */
+    public int getDepth()
+    {
+        return depth;
+    }
+
+    /**
+     * Outputs the slot the Resolver gave this variable.
+     * @return the slot, or -1 if the variable has not been resolved
+     */
+    public int getSlot()
+    {
+        return slot;
+    }
+
+    /**
+     * Evaluates in Environment env passed in and outputs name. A resolved variable is
+     * read straight from its slot.
      *
      * @param env the Environment
      */
     public int eval(Environment env)
     {
+        if (slot >= 0)
+            return env.getSlot(depth, slot);
         return env.getVariable(name);
     }
 
     /**
      * Compiles the variable by storing the value of the given word in $v0.
-     * The  the address of the variable is loaded into $t0. It then is loaded into
+     * A local variable of the current procedure is loaded from its stack slot; otherwise
+     * the address of the variable is loaded into $t0. It then is loaded into
      * $v0.
      * @param e The emitter that emits statements to the file
      */
     public void compile (Emitter e)
     {
+        if (e.isLocalVariable(name))
+        {
+            e.emit("lw $v0, " + e.getLocalOffset(name) + "($sp) \t#loads local " + name
+                    + " into $v0");
+            return;
+        }
         e.emit("la $t0, " + name);
         e.emit("lw $v0, ($t0) \t#loads value of " + name + " into $v0");
     }
@@ -27,6 +27,24 @@ public class While extends Statement
         s = statement;
     }
 
+    /**
+     * Outputs the loop condition.
+     * @return the condition
+     */
+    public Condition getCondition()
+    {
+        return con;
+    }
+
+    /**
+     * Outputs the body of the loop.
+     * @return the body
+     */
+    public Statement getStatement()
+    {
+        return s;
+    }
+
     /**
      * Executes by evaluating the statement in env
      * @param env the Environment
@@ -24,12 +24,21 @@ public class Writeln extends Statement
     }
 
     /**
-     * Executes by printing the evaluated Expression
+     * Outputs the printed expression.
+     * @return the expression
+     */
+    public Expression getExpression()
+    {
+        return exp;
+    }
+
+    /**
+     * Executes by printing the evaluated Expression to the Environment's output
      * @param env the Environment passed in
      */
     public void exec(Environment env)
     {
-        System.out.println(exp.eval(env));
+        env.getOutput().writeInt(exp.eval(env));
     }
 
     /**
@@ -0,0 +1,53 @@
+package binary;
+
+/**
+ * AstFormat holds the constants of the binary AST format written by AstWriter and read by
+ * AstReader. A file is the magic number and version, then a table of every name used,
+ * then the global variables, the procedures and the main statement. Each node is a tag
+ * byte followed by its fields, with names as indices into the table and ints as
+ * variable-length integers, zigzag encoded when they may be negative.
+ *
+ * @author Montek Kalsi
+ * @version 10/17/26
+ */
+public final class AstFormat
+{
+    public static final int MAGIC = 0x50415354;
+    public static final int VERSION = 1;
+
+    public static final int NUMBER = 0;
+    public static final int VARIABLE = 1;
+    public static final int BINOP = 2;
+    public static final int CONDITION = 3;
+    public static final int CALL = 4;
+    public static final int WRITELN = 5;
+    public static final int ASSIGN = 6;
+    public static final int BLOCK = 7;
+    public static final int IF = 8;
+    public static final int IF_ELSE = 9;
+    public static final int WHILE = 10;
+
+    // operators are written as their index in this array
+    static final String[] OPERATORS = {"+", "-", "*", "/", "%", "=", "<>", "<", ">", "<=", ">="};
+
+    /**
+     * Constructs nothing; AstFormat only has constants.
+     */
+    private AstFormat()
+    {
+    }
+
+    /**
+     * Finds the index of an operator.
+     * @param op the operator
+     * @return its index in OPERATORS
+     * @throws IllegalArgumentException if op is not an operator
+     */
+    static int operator(String op)
+    {
+        for (int i = 0; i < OPERATORS.length; i++)
+            if (OPERATORS[i].equals(op))
+                return i;
+        throw new IllegalArgumentException("unknown operator " + op);
+    }
+}
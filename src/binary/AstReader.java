@@ -0,0 +1,271 @@
+package binary;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import ast.*;
+import ast.Number;
+
+/**
+ * AstReader loads a Program written by AstWriter. It reads straight from a ByteBuffer,
+ * which may be a memory-mapped file, and builds each node with its constructor according
+ * to its tag, so loading a program never scans or parses its source. The Program comes
+ * back unresolved, exactly as the Parser would have built it.
+ *
+ * @author Montek Kalsi
+ * @version 10/17/26
+ */
+public class AstReader
+{
+    private ByteBuffer in;
+    private String[] table;
+
+    /**
+     * Constructs a reader.
+     * @param in the bytes to read, from their position
+     */
+    private AstReader(ByteBuffer in)
+    {
+        this.in = in;
+    }
+
+    /**
+     * Loads a Program from bytes. Any failure to decode them, including nesting too deep
+     * to read, is reported as an IllegalArgumentException.
+     * @param in the bytes, read from their position
+     * @return the program
+     * @throws IllegalArgumentException if the bytes are not a serialized Program
+     */
+    public static Program read(ByteBuffer in)
+    {
+        try
+        {
+            return new AstReader(in).program();
+        }
+        catch (IllegalArgumentException e)
+        {
+            throw e;
+        }
+        catch (RuntimeException | StackOverflowError e)
+        {
+            throw new IllegalArgumentException("serialized program is corrupt", e);
+        }
+    }
+
+    // files smaller than this are read rather than mapped, which costs less
+    private static final int MAP_THRESHOLD = 1 << 16;
+
+    /**
+     * Loads a Program from a file, mapping it into memory if it is large.
+     * @param file the file
+     * @return the program
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if the file is not a serialized Program
+     */
+    public static Program load(File file) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ))
+        {
+            long size = channel.size();
+            if (size >= MAP_THRESHOLD)
+                return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+            ByteBuffer bytes = ByteBuffer.allocate((int) size);
+            while (bytes.hasRemaining() && channel.read(bytes) >= 0)
+                ;
+            bytes.flip();
+            return read(bytes);
+        }
+    }
+
+    /**
+     * Reads a whole Program.
+     * @return the program
+     */
+    private Program program()
+    {
+        if (in.getInt() != AstFormat.MAGIC)
+            throw new IllegalArgumentException("not a serialized program");
+        int version = varint();
+        if (version != AstFormat.VERSION)
+            throw new IllegalArgumentException("unsupported version " + version);
+        table = new String[count()];
+        for (int i = 0; i < table.length; i++)
+        {
+            byte[] bytes = new byte[count()];
+            in.get(bytes);
+            table[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        Program program = new Program();
+        program.setVariables(names());
+        int procs = count();
+        for (int i = 0; i < procs; i++)
+        {
+            String name = name();
+            List<String> args = names();
+            List<String> vars = names();
+            program.addProcedure(new ProcedureDeclaration(name, statement(), args, vars));
+        }
+        program.setStatement(statement());
+        return program;
+    }
+
+    /**
+     * Reads a list of names.
+     * @return the names
+     */
+    private ArrayList<String> names()
+    {
+        int count = count();
+        ArrayList<String> list = new ArrayList<String>(count);
+        for (int i = 0; i < count; i++)
+            list.add(name());
+        return list;
+    }
+
+    /**
+     * Reads a name as its index in the table.
+     * @return the name
+     */
+    private String name()
+    {
+        return table[varint()];
+    }
+
+    /**
+     * Reads a statement.
+     * @return the statement
+     * @throws IllegalArgumentException if the tag is not a statement
+     */
+    private Statement statement()
+    {
+        int tag = in.get();
+        switch (tag)
+        {
+            case AstFormat.WRITELN:
+                return new Writeln(expression());
+            case AstFormat.ASSIGN:
+            {
+                String var = name();
+                return new Assignment(var, expression());
+            }
+            case AstFormat.BLOCK:
+            {
+                int count = count();
+                List<Statement> stmts = new ArrayList<Statement>(count);
+                for (int i = 0; i < count; i++)
+                    stmts.add(statement());
+                return new Block(stmts);
+            }
+            case AstFormat.IF:
+            {
+                Condition cond = condition();
+                return new If(cond, statement());
+            }
+            case AstFormat.IF_ELSE:
+            {
+                Condition cond = condition();
+                Statement then = statement();
+                return new If(cond, then, statement());
+            }
+            case AstFormat.WHILE:
+            {
+                Condition cond = condition();
+                return new While(cond, statement());
+            }
+            default:
+                throw new IllegalArgumentException("bad statement tag " + tag);
+        }
+    }
+
+    /**
+     * Reads an expression that must be a condition.
+     * @return the condition
+     * @throws IllegalArgumentException if it is not a condition
+     */
+    private Condition condition()
+    {
+        Expression exp = expression();
+        if (!(exp instanceof Condition))
+            throw new IllegalArgumentException("expected a condition");
+        return (Condition) exp;
+    }
+
+    /**
+     * Reads an expression.
+     * @return the expression
+     * @throws IllegalArgumentException if the tag is not an expression
+     */
+    private Expression expression()
+    {
+        int tag = in.get();
+        switch (tag)
+        {
+            case AstFormat.NUMBER:
+            {
+                int zigzag = varint();
+                return new Number((zigzag >>> 1) ^ -(zigzag & 1));
+            }
+            case AstFormat.VARIABLE:
+                return new Variable(name());
+            case AstFormat.BINOP:
+            {
+                String op = AstFormat.OPERATORS[in.get()];
+                Expression left = expression();
+                return new BinOp(op, left, expression());
+            }
+            case AstFormat.CONDITION:
+            {
+                String op = AstFormat.OPERATORS[in.get()];
+                Expression left = expression();
+                return new Condition(op, left, expression());
+            }
+            case AstFormat.CALL:
+            {
+                String id = name();
+                int count = count();
+                List<Expression> args = new ArrayList<Expression>(count);
+                for (int i = 0; i < count; i++)
+                    args.add(expression());
+                return new ProcedureCall(id, args);
+            }
+            default:
+                throw new IllegalArgumentException("bad expression tag " + tag);
+        }
+    }
+
+    /**
+     * Reads a count of names, bytes or nodes, each of which takes at least one more byte.
+     * @return the count
+     * @throws IllegalArgumentException if the count is negative or longer than the rest
+     *         of the bytes
+     */
+    private int count()
+    {
+        int count = varint();
+        if (count < 0 || count > in.remaining())
+            throw new IllegalArgumentException("bad count " + count);
+        return count;
+    }
+
+    /**
+     * Reads an int written seven bits per byte.
+     * @return the value
+     */
+    private int varint()
+    {
+        int value = 0;
+        for (int shift = 0; ; shift += 7)
+        {
+            int b = in.get();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                return value;
+        }
+    }
+}
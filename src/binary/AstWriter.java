@@ -0,0 +1,295 @@
+package binary;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import ast.*;
+import ast.Number;
+
+/**
+ * AstWriter serializes a Program into the binary format of AstFormat. The names are
+ * collected in a first pass so the table can be written before the nodes that use it.
+ *
+ * @author Montek Kalsi
+ * @version 10/17/26
+ */
+public class AstWriter
+{
+    private ByteArrayOutputStream out;
+    private Map<String, Integer> names;
+    private List<String> table;
+
+    /**
+     * Constructs a writer with an empty name table.
+     */
+    private AstWriter()
+    {
+        out = new ByteArrayOutputStream();
+        names = new HashMap<String, Integer>();
+        table = new ArrayList<String>();
+    }
+
+    /**
+     * Serializes a Program.
+     * @param program the program
+     * @return its bytes
+     */
+    public static byte[] write(Program program)
+    {
+        return new AstWriter().program(program);
+    }
+
+    /**
+     * Serializes a Program into a file.
+     * @param program the program
+     * @param file the file written
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(Program program, File file) throws IOException
+    {
+        Files.write(file.toPath(), write(program));
+    }
+
+    /**
+     * Writes a whole Program.
+     * @param program the program
+     * @return the bytes written
+     */
+    private byte[] program(Program program)
+    {
+        for (String var : program.getVariables())
+            name(var);
+        for (ProcedureDeclaration proc : program.getProcedures())
+        {
+            name(proc.getName());
+            for (String arg : proc.getArgs())
+                name(arg);
+            for (String var : proc.getVars())
+                name(var);
+            collect(proc.getStmt());
+        }
+        collect(program.getStatement());
+
+        writeInt(AstFormat.MAGIC);
+        varint(AstFormat.VERSION);
+        varint(table.size());
+        for (String name : table)
+        {
+            byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+            varint(bytes.length);
+            out.write(bytes, 0, bytes.length);
+        }
+        names(program.getVariables());
+        varint(program.getProcedures().size());
+        for (ProcedureDeclaration proc : program.getProcedures())
+        {
+            varint(names.get(proc.getName()));
+            names(proc.getArgs());
+            names(proc.getVars());
+            statement(proc.getStmt());
+        }
+        statement(program.getStatement());
+        return out.toByteArray();
+    }
+
+    /**
+     * Adds a name to the table unless it is there already.
+     * @param name the name
+     */
+    private void name(String name)
+    {
+        if (!names.containsKey(name))
+        {
+            names.put(name, table.size());
+            table.add(name);
+        }
+    }
+
+    /**
+     * Adds the names used by a node and the nodes under it.
+     * @param node a statement or expression
+     */
+    private void collect(Object node)
+    {
+        if (node instanceof Variable)
+            name(((Variable) node).getName());
+        else if (node instanceof Assignment)
+        {
+            name(((Assignment) node).getVariable());
+            collect(((Assignment) node).getExpression());
+        }
+        else if (node instanceof ProcedureCall)
+        {
+            name(((ProcedureCall) node).getId());
+            for (Expression arg : ((ProcedureCall) node).getArgs())
+                collect(arg);
+        }
+        else if (node instanceof BinOp)
+        {
+            collect(((BinOp) node).getLeft());
+            collect(((BinOp) node).getRight());
+        }
+        else if (node instanceof Condition)
+        {
+            collect(((Condition) node).getLeft());
+            collect(((Condition) node).getRight());
+        }
+        else if (node instanceof Writeln)
+            collect(((Writeln) node).getExpression());
+        else if (node instanceof Block)
+        {
+            for (Statement s : ((Block) node).getStatements())
+                collect(s);
+        }
+        else if (node instanceof If)
+        {
+            collect(((If) node).getCondition());
+            collect(((If) node).getStatement());
+            collect(((If) node).getElse());
+        }
+        else if (node instanceof While)
+        {
+            collect(((While) node).getCondition());
+            collect(((While) node).getStatement());
+        }
+    }
+
+    /**
+     * Writes a list of names as a count and their indices.
+     * @param list the names
+     */
+    private void names(List<String> list)
+    {
+        varint(list.size());
+        for (String name : list)
+            varint(names.get(name));
+    }
+
+    /**
+     * Writes a statement.
+     * @param stmt the statement
+     * @throws IllegalArgumentException if the statement is of an unknown kind
+     */
+    private void statement(Statement stmt)
+    {
+        if (stmt instanceof Writeln)
+        {
+            out.write(AstFormat.WRITELN);
+            expression(((Writeln) stmt).getExpression());
+        }
+        else if (stmt instanceof Assignment)
+        {
+            out.write(AstFormat.ASSIGN);
+            varint(names.get(((Assignment) stmt).getVariable()));
+            expression(((Assignment) stmt).getExpression());
+        }
+        else if (stmt instanceof Block)
+        {
+            List<Statement> stmts = ((Block) stmt).getStatements();
+            out.write(AstFormat.BLOCK);
+            varint(stmts.size());
+            for (Statement s : stmts)
+                statement(s);
+        }
+        else if (stmt instanceof If)
+        {
+            If ifStmt = (If) stmt;
+            out.write(ifStmt.getElse() == null ? AstFormat.IF : AstFormat.IF_ELSE);
+            expression(ifStmt.getCondition());
+            statement(ifStmt.getStatement());
+            if (ifStmt.getElse() != null)
+                statement(ifStmt.getElse());
+        }
+        else if (stmt instanceof While)
+        {
+            out.write(AstFormat.WHILE);
+            expression(((While) stmt).getCondition());
+            statement(((While) stmt).getStatement());
+        }
+        else
+            throw new IllegalArgumentException("cannot write "
+                    + stmt.getClass().getSimpleName());
+    }
+
+    /**
+     * Writes an expression.
+     * @param exp the expression
+     * @throws IllegalArgumentException if the expression is of an unknown kind
+     */
+    private void expression(Expression exp)
+    {
+        if (exp instanceof Number)
+        {
+            out.write(AstFormat.NUMBER);
+            int value = ((Number) exp).getValue();
+            varint((value << 1) ^ (value >> 31));
+        }
+        else if (exp instanceof Variable)
+        {
+            out.write(AstFormat.VARIABLE);
+            varint(names.get(((Variable) exp).getName()));
+        }
+        else if (exp instanceof BinOp)
+        {
+            BinOp bin = (BinOp) exp;
+            out.write(AstFormat.BINOP);
+            out.write(AstFormat.operator(bin.getOperator()));
+            expression(bin.getLeft());
+            expression(bin.getRight());
+        }
+        else if (exp instanceof Condition)
+        {
+            Condition cond = (Condition) exp;
+            out.write(AstFormat.CONDITION);
+            out.write(AstFormat.operator(cond.getOperator()));
+            expression(cond.getLeft());
+            expression(cond.getRight());
+        }
+        else if (exp instanceof ProcedureCall)
+        {
+            ProcedureCall call = (ProcedureCall) exp;
+            out.write(AstFormat.CALL);
+            varint(names.get(call.getId()));
+            varint(call.getArgs().size());
+            for (Expression arg : call.getArgs())
+                expression(arg);
+        }
+        else
+            throw new IllegalArgumentException("cannot write "
+                    + exp.getClass().getSimpleName());
+    }
+
+    /**
+     * Writes an int as seven bits per byte, low bits first, with the high bit of each
+     * byte set when more follow.
+     * @param value the value, treated as unsigned
+     */
+    private void varint(int value)
+    {
+        while ((value & ~0x7F) != 0)
+        {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    /**
+     * Writes an int as four bytes, high byte first.
+     * @param value the value
+     */
+    private void writeInt(int value)
+    {
+        out.write(value >>> 24);
+        out.write(value >>> 16);
+        out.write(value >>> 8);
+        out.write(value);
+    }
+}
@@ -0,0 +1,405 @@
+package cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import ast.Program;
+import binary.AstReader;
+import binary.AstWriter;
+import parser.Parser;
+import scanner.ScanErrorException;
+import scanner.Scanner;
+
+/**
+ * ProgramCache keeps parsed Programs and their MIPS code, keyed by the SHA-256 hash of the
+ * source text, so the same source is scanned, parsed and compiled only once. The memory
+ * tier is an LRU map holding at most a fixed number of sources. If a directory is given,
+ * each Program is also written there as key.ast in the binary format of AstWriter, and
+ * its MIPS code as key.asm, so both survive evictions and restarts and a Program found
+ * on disk is loaded without being parsed.
+ *
+ * Each source is filled in under its own lock, so threads that miss on the same source
+ * at once parse and compile it only once, while other sources go on in parallel. A
+ * source enters the LRU map only once something for it has been cached, so one that
+ * fails to parse never evicts anything. Cached Programs are shared, which is safe since
+ * a Program can be run on many threads at once. The disk tier is only a cache: a file
+ * that cannot be read or written is treated as missing.
+ *
+ * @author Montek Kalsi
+ * @version 10/17/26
+ */
+public class ProgramCache
+{
+    private final int capacity;
+    private final File directory;
+    private final LinkedHashMap<String, Entry> entries;
+    private final ConcurrentHashMap<String, Entry> pending =
+            new ConcurrentHashMap<String, Entry>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder diskHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * What is cached for one source. Either part may be missing: the MIPS code until it
+     * is first asked for, and the Program when the MIPS code came from disk.
+     */
+    private static class Entry
+    {
+        private volatile Program program;
+        private volatile String mips;
+    }
+
+    /**
+     * Constructs a cache with only a memory tier.
+     * @param capacity the most sources kept in memory
+     */
+    public ProgramCache(int capacity)
+    {
+        this(capacity, null);
+    }
+
+    /**
+     * Constructs a cache with a memory tier and a disk tier.
+     * @param capacity the most sources kept in memory
+     * @param directory the directory for MIPS files, or null for no disk tier
+     */
+    public ProgramCache(int capacity, File directory)
+    {
+        this.capacity = capacity;
+        this.directory = directory;
+        if (directory != null)
+            directory.mkdirs();
+        entries = new LinkedHashMap<String, Entry>(16, 0.75f, true)
+        {
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest)
+            {
+                if (size() <= ProgramCache.this.capacity)
+                    return false;
+                evictions.increment();
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Computes the key of a source: the hex SHA-256 hash of its UTF-8 bytes.
+     * @param source the source text
+     * @return the key
+     */
+    public static String key(String source)
+    {
+        try
+        {
+            byte[] hash = MessageDigest.getInstance("SHA-256")
+                    .digest(source.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(hash.length * 2);
+            for (byte b : hash)
+                hex.append(Character.forDigit((b >> 4) & 15, 16))
+                        .append(Character.forDigit(b & 15, 16));
+            return hex.toString();
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Finds the entry for a key. An entry that is not yet filled is kept out of the LRU
+     * map, so that a source which fails to parse never takes a slot there.
+     * @param key the key
+     * @return the entry
+     */
+    private Entry entry(String key)
+    {
+        synchronized (entries)
+        {
+            Entry entry = entries.get(key);
+            if (entry != null)
+                return entry;
+        }
+        return pending.computeIfAbsent(key, k -> new Entry());
+    }
+
+    /**
+     * Ends an attempt to fill an entry: an entry with something in it is put in the LRU
+     * map, and an empty one is dropped.
+     * @param key the key
+     * @param entry the entry
+     */
+    private void settle(String key, Entry entry)
+    {
+        if (entry.program != null || entry.mips != null)
+        {
+            synchronized (entries)
+            {
+                entries.put(key, entry);
+            }
+        }
+        pending.remove(key, entry);
+    }
+
+    /**
+     * Outputs the parsed Program of a source. It comes from memory, then from disk, and
+     * the source is only parsed if neither has it. Requests for the same source wait for
+     * each other, so it is parsed once.
+     * @param source the source text
+     * @return the Program
+     * @throws ScanErrorException if the source cannot be scanned
+     * @throws IOException if the source cannot be read
+     */
+    public Program getProgram(String source) throws ScanErrorException, IOException
+    {
+        String key = key(source);
+        Entry entry = entry(key);
+        Program program = entry.program;
+        if (program == null)
+        {
+            synchronized (entry)
+            {
+                program = entry.program;
+                if (program == null)
+                {
+                    try
+                    {
+                        program = load(key);
+                        if (program != null)
+                            diskHits.increment();
+                        else
+                        {
+                            misses.increment();
+                            program = parse(source, key);
+                        }
+                        entry.program = program;
+                        return program;
+                    }
+                    finally
+                    {
+                        settle(key, entry);
+                    }
+                }
+            }
+        }
+        hits.increment();
+        return program;
+    }
+
+    /**
+     * Loads the Program of a key from the disk tier.
+     * @param key the key
+     * @return the Program, or null if the disk tier does not have it
+     */
+    private Program load(String key)
+    {
+        if (directory == null)
+            return null;
+        File file = new File(directory, key + ".ast");
+        if (!file.isFile())
+            return null;
+        try
+        {
+            return AstReader.load(file);
+        }
+        catch (IOException | RuntimeException e)
+        {
+            // parse it again
+            return null;
+        }
+    }
+
+    /**
+     * Parses a source and writes its Program to the disk tier.
+     * @param source the source text
+     * @param key the key
+     * @return the Program
+     * @throws ScanErrorException if the source cannot be scanned
+     * @throws IOException if the source cannot be read
+     */
+    private Program parse(String source, String key) throws ScanErrorException, IOException
+    {
+        Program program = new Parser(new Scanner(source)).parseProgram();
+        if (directory != null)
+            write(new File(directory, key + ".ast").toPath(), AstWriter.write(program));
+        return program;
+    }
+
+    /**
+     * Outputs the MIPS code of a source. It comes from memory, then from disk, and is
+     * only compiled, from the cached Program, if neither has it. A compile counts as one
+     * miss, even when the Program was already in memory.
+     * @param source the source text
+     * @return the MIPS code
+     * @throws ScanErrorException if the source cannot be scanned
+     * @throws IOException if the source cannot be read or compiled
+     */
+    public String getMips(String source) throws ScanErrorException, IOException
+    {
+        String key = key(source);
+        Entry entry = entry(key);
+        String mips = entry.mips;
+        if (mips == null)
+        {
+            synchronized (entry)
+            {
+                mips = entry.mips;
+                if (mips == null)
+                {
+                    try
+                    {
+                        return fill(source, key, entry);
+                    }
+                    finally
+                    {
+                        settle(key, entry);
+                    }
+                }
+            }
+        }
+        hits.increment();
+        return mips;
+    }
+
+    /**
+     * Fills in the MIPS code of an entry from the disk tier or by compiling.
+     * @param source the source text
+     * @param key the key
+     * @param entry the entry, whose lock is held
+     * @return the MIPS code
+     * @throws ScanErrorException if the source cannot be scanned
+     * @throws IOException if the source cannot be read or compiled
+     */
+    private String fill(String source, String key, Entry entry)
+            throws ScanErrorException, IOException
+    {
+        Path file = directory == null ? null : new File(directory, key + ".asm").toPath();
+        if (file != null && Files.isRegularFile(file))
+        {
+            try
+            {
+                String mips = Files.readString(file);
+                diskHits.increment();
+                entry.mips = mips;
+                return mips;
+            }
+            catch (IOException e)
+            {
+                // fall through and compile it again
+            }
+        }
+        misses.increment();
+        Program program = entry.program;
+        if (program == null)
+        {
+            program = load(key);
+            if (program == null)
+                program = parse(source, key);
+            entry.program = program;
+        }
+        String mips = compile(program);
+        entry.mips = mips;
+        if (file != null)
+            write(file, mips.getBytes(StandardCharsets.UTF_8));
+        return mips;
+    }
+
+    /**
+     * Compiles a Program to MIPS code through a temporary file.
+     * @param program the program
+     * @return the MIPS code
+     * @throws IOException if the temporary file cannot be used
+     */
+    private static String compile(Program program) throws IOException
+    {
+        Path temp = Files.createTempFile("program", ".asm");
+        try
+        {
+            program.compile(temp.toString());
+            return Files.readString(temp);
+        }
+        finally
+        {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Writes a file of the disk tier so that readers never see it half written.
+     * @param file the file
+     * @param bytes its contents
+     */
+    private void write(Path file, byte[] bytes)
+    {
+        try
+        {
+            Path temp = Files.createTempFile(directory.toPath(), "entry", ".tmp");
+            Files.write(temp, bytes);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (IOException e)
+        {
+            // the disk tier is only a cache; the entry stays in memory
+        }
+    }
+
+    /**
+     * Outputs the number of requests answered from memory.
+     * @return the number of memory hits
+     */
+    public long getHits()
+    {
+        return hits.sum();
+    }
+
+    /**
+     * Outputs the number of requests answered from the disk tier.
+     * @return the number of disk hits
+     */
+    public long getDiskHits()
+    {
+        return diskHits.sum();
+    }
+
+    /**
+     * Outputs the number of sources parsed or compiled because neither tier had what was
+     * asked for.
+     * @return the number of misses
+     */
+    public long getMisses()
+    {
+        return misses.sum();
+    }
+
+    /**
+     * Outputs the number of sources dropped from memory to stay within the capacity.
+     * @return the number of evictions
+     */
+    public long getEvictions()
+    {
+        return evictions.sum();
+    }
+
+    /**
+     * Outputs the number of sources in memory.
+     * @return the size of the memory tier
+     */
+    public int size()
+    {
+        synchronized (entries)
+        {
+            return entries.size();
+        }
+    }
+}
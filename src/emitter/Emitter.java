@@ -114,8 +114,54 @@ public class Emitter
 	public void setProc(ProcedureDeclaration proc)
 	{
 		pro = proc;
+		beginFrame();
+	}
+
+	/**
+	 * Starts counting stack pushes from zero for a new procedure frame. The word pushed
+	 * just before this call is at frame position 0.
+	 */
+	public void beginFrame()
+	{
 		height = 0;
 	}
+
+	/**
+	 * Records that a callee popped words that this procedure pushed, such as the
+	 * arguments of a call.
+	 * @param words the number of words popped
+	 */
+	public void stackPopped(int words)
+	{
+		height -= words;
+	}
+
+	/**
+	 * Computes the $sp offset of a word in the current frame. Position 0 is the return
+	 * value, pushed just before beginFrame; position 1 is $ra and positions 2 and up are
+	 * the locals. Arguments are below the return value at positions -1, -2, and so on.
+	 * @param position the frame position of the word
+	 * @return the byte offset of the word from $sp
+	 */
+	public int getFrameOffset(int position)
+	{
+		return (height - position) * 4;
+	}
+
+	/**
+	 * Computes the $sp offset of a local variable of the current ProcedureDeclaration.
+	 * @param var the name of a variable for which isLocalVariable is true
+	 * @return the byte offset of the variable from $sp
+	 */
+	public int getLocalOffset(String var)
+	{
+		if (var.equals(pro.getName()))
+			return getFrameOffset(0);
+		int arg = pro.getArgs().indexOf(var);
+		if (arg >= 0)
+			return getFrameOffset(-1 - arg);
+		return getFrameOffset(2 + pro.getVars().indexOf(var));
+	}
 	/**
 	 * Clears current procedure context
 	 * @postcondition current ProcedureDeclaration is null.
@@ -1,10 +1,13 @@
 package environment;
 
+import java.util.Arrays;
 import java.util.Hashtable;
 import java.util.List;
 
 import ast.ProcedureDeclaration;
 import ast.Statement;
+import output.BufferedSink;
+import output.OutputSink;
 
 import scanner.ScanErrorException;
 
@@ -13,6 +16,17 @@ import scanner.ScanErrorException;
  * in a Hashtable map. Procedure names are also mapped to ProcedureDeclaration
  * objects. Environments can have parent Environments.
  *
+ * An Environment can also hold an array of int slots. Programs that have been through
+ * the Resolver address every variable by a (depth, slot) pair instead of by name:
+ * depth is the number of parents to walk up and slot is the index in that
+ * Environment's array, so no name is hashed while the program runs.
+ *
+ * The frames of resolved procedure calls come from a pool kept by the global
+ * Environment. Calls nest, so the pool is used as a stack: pushFrame hands out the next
+ * frame, reusing one from an earlier call when it is big enough, and popFrame gives it
+ * back. Frames have no Hashtables, so a call in steady state allocates nothing. The
+ * global Environment can also hold a MemoTable for the results of pure procedures.
+ *
  * @author Montek Kalsi
  * @version 11/12/19
  */
@@ -21,6 +35,12 @@ public class Environment
     private Hashtable<String,Integer> table;
     private Hashtable<String,ProcedureDeclaration> procedures;
     private Environment parent;
+    private int[] slots;
+    private String[] slotNames;
+    private Environment[] frames;
+    private int frameCount;
+    private OutputSink output;
+    private MemoTable memo;
 
     /**
      * Default constructor for an Environment which initializes table,
@@ -44,6 +64,162 @@ public class Environment
         procedures = new Hashtable<String,ProcedureDeclaration>();
     }
 
+    /**
+     * Constructor for an environment with a parent p and an array of slots, used as the
+     * frame of a resolved procedure call. The frame's Hashtables are only created if a
+     * variable is ever declared in it by name.
+     * @param p the parent environment passed in
+     * @param size the number of slots in the frame
+     */
+    public Environment(Environment p, int size)
+    {
+        parent = p;
+        slots = new int[size];
+    }
+
+    /**
+     * Takes the next frame from the pool of this global Environment, with its first size
+     * slots set to 0. The frame must be given back with popFrame once the call returns.
+     * @param size the number of slots the procedure needs
+     * @return the frame, whose parent is this Environment
+     */
+    public Environment pushFrame(int size)
+    {
+        if (frames == null)
+            frames = new Environment[16];
+        else if (frameCount == frames.length)
+            frames = Arrays.copyOf(frames, frameCount * 2);
+        Environment frame = frames[frameCount];
+        if (frame == null || frame.slots.length < size)
+        {
+            frame = new Environment(this, size);
+            frames[frameCount] = frame;
+        }
+        else
+            Arrays.fill(frame.slots, 0, size, 0);
+        frameCount++;
+        return frame;
+    }
+
+    /**
+     * Gives the most recently pushed frame back to the pool.
+     */
+    public void popFrame()
+    {
+        frameCount--;
+    }
+
+    /**
+     * Gives this Environment one slot for each of the named variables. Resolved programs
+     * keep their globals in these slots. A variable already declared here by name moves
+     * into its slot with its value, which is how a program is given inputs; the others
+     * start at 0.
+     * @param names the names of the variables, in slot order
+     */
+    public void declareSlots(List<String> names)
+    {
+        slotNames = names.toArray(new String[0]);
+        slots = new int[slotNames.length];
+        if (table != null)
+            for (int i = 0; i < slotNames.length; i++)
+            {
+                Integer value = table.remove(slotNames[i]);
+                if (value != null)
+                    slots[i] = value;
+            }
+    }
+
+    /**
+     * Turns on memoization of pure procedures for programs run in this global
+     * Environment.
+     * @param capacity the most results remembered
+     */
+    public void enableMemo(int capacity)
+    {
+        memo = new MemoTable(capacity);
+    }
+
+    /**
+     * Finds the memo table of the global Environment.
+     * @return the table, or null if memoization is off
+     */
+    public MemoTable getMemo()
+    {
+        return getRoot().memo;
+    }
+
+    /**
+     * Sets where WRITELN prints for programs run in this global Environment.
+     * @param output the sink to print to
+     */
+    public void setOutput(OutputSink output)
+    {
+        this.output = output;
+    }
+
+    /**
+     * Finds where WRITELN prints: the output of the global Environment, which is a
+     * buffered sink on System.out if none was set.
+     * @return the sink to print to
+     */
+    public OutputSink getOutput()
+    {
+        Environment e = getRoot();
+        if (e.output == null)
+            e.output = new BufferedSink(System.out);
+        return e.output;
+    }
+
+    /**
+     * Reads a slot of this Environment or of one of its parents.
+     * @param depth the number of parents to walk up
+     * @param slot the index of the slot
+     * @return the value in the slot
+     */
+    public int getSlot(int depth, int slot)
+    {
+        Environment e = this;
+        for (int i = 0; i < depth; i++)
+            e = e.parent;
+        return e.slots[slot];
+    }
+
+    /**
+     * Reads a slot of this Environment itself.
+     * @param slot the index of the slot
+     * @return the value in the slot
+     */
+    public int getLocal(int slot)
+    {
+        return slots[slot];
+    }
+
+    /**
+     * Writes a slot of this Environment or of one of its parents.
+     * @param depth the number of parents to walk up
+     * @param slot the index of the slot
+     * @param value the value to store
+     */
+    public void setSlot(int depth, int slot, int value)
+    {
+        Environment e = this;
+        for (int i = 0; i < depth; i++)
+            e = e.parent;
+        e.slots[slot] = value;
+    }
+
+    /**
+     * Finds the global Environment, the one without a parent.
+     * @return the root of this Environment's parent chain
+     */
+    public Environment getRoot()
+    {
+        Environment e = this;
+        while (e.parent != null)
+            e = e.parent;
+        return e;
+    }
+
     /**
      * If there is a parent and variable isn't in the current
      * Environment, then its value is set in the parent.
@@ -53,7 +229,7 @@ public class Environment
      */
     public void setVariable(String variable, int value)
     {
-        if (parent!=null && !table.contains(variable))
+        if (parent!=null && (table == null || !table.containsKey(variable)))
             parent.setVariable(variable, value);
         else
             declareVariable(variable,value);
@@ -81,16 +257,20 @@ public class Environment
     /**
      * If the variable is in this Environment, then its corresponding
      * value is returned. Otherwise, getVariable is called on the
-     * parent.
+     * parent. A global kept in a named slot is found as well.
      * @param variable the variable's value being checked
      * @return the correspondng variable's value
      */
     public int getVariable(String variable)
     {
-        if (table.keySet().contains(variable))
-            return table.get(variable);
-        else
-            return parent.getVariable(variable);
+        Integer value = table == null ? null : table.get(variable);
+        if (value != null)
+            return value;
+        if (slotNames != null)
+            for (int i = 0; i < slotNames.length; i++)
+                if (slotNames[i].equals(variable))
+                    return slots[i];
+        return parent.getVariable(variable);
     }
 
     /**
@@ -109,6 +289,8 @@ public class Environment
      */
     public void declareVariable(String variable, int value)
     {
+        if (table == null)
+            table = new Hashtable<String,Integer>();
         table.put(variable,value);
     }
 
@@ -0,0 +1,129 @@
+package environment;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import ast.ProcedureDeclaration;
+
+/**
+ * A MemoTable remembers the results of calls to pure procedures, keyed by the procedure
+ * and its argument values. It holds at most a fixed number of results and evicts the
+ * least recently used one when full. A MemoTable belongs to one global Environment and so
+ * to one run of a program; it is not safe to share between threads.
+ *
+ * @author Montek Kalsi
+ * @version 10/17/26
+ */
+public class MemoTable
+{
+    private final int capacity;
+    private final LinkedHashMap<Key, Integer> results;
+    private long hits;
+    private long misses;
+
+    /**
+     * A procedure together with the values of its arguments.
+     */
+    private static final class Key
+    {
+        private final ProcedureDeclaration proc;
+        private final int[] args;
+        private final int hash;
+
+        /**
+         * Constructs a key.
+         * @param proc the procedure
+         * @param args the argument values, which the key keeps
+         */
+        Key(ProcedureDeclaration proc, int[] args)
+        {
+            this.proc = proc;
+            this.args = args;
+            hash = 31 * System.identityHashCode(proc) + Arrays.hashCode(args);
+        }
+
+        /**
+         * Outputs the hash of the procedure and arguments.
+         * @return the hash
+         */
+        public int hashCode()
+        {
+            return hash;
+        }
+
+        /**
+         * Checks whether another key names the same procedure and arguments.
+         * @param o the other object
+         * @return true if they are equal
+         */
+        public boolean equals(Object o)
+        {
+            if (!(o instanceof Key))
+                return false;
+            Key k = (Key) o;
+            return proc == k.proc && Arrays.equals(args, k.args);
+        }
+    }
+
+    /**
+     * Constructs an empty table.
+     * @param capacity the most results kept
+     */
+    public MemoTable(int capacity)
+    {
+        this.capacity = capacity;
+        results = new LinkedHashMap<Key, Integer>(16, 0.75f, true)
+        {
+            protected boolean removeEldestEntry(Map.Entry<Key, Integer> eldest)
+            {
+                return size() > MemoTable.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * Looks up the result of a call.
+     * @param proc the procedure
+     * @param args the argument values
+     * @return the result, or null if it is not remembered
+     */
+    public Integer get(ProcedureDeclaration proc, int[] args)
+    {
+        Integer result = results.get(new Key(proc, args));
+        if (result == null)
+            misses++;
+        else
+            hits++;
+        return result;
+    }
+
+    /**
+     * Remembers the result of a call.
+     * @param proc the procedure
+     * @param args the argument values, which must not be changed afterwards
+     * @param result the value the call returned
+     */
+    public void put(ProcedureDeclaration proc, int[] args, int result)
+    {
+        results.put(new Key(proc, args), result);
+    }
+
+    /**
+     * Outputs the number of calls answered from the table.
+     * @return the number of hits
+     */
+    public long getHits()
+    {
+        return hits;
+    }
+
+    /**
+     * Outputs the number of calls to pure procedures that had to run.
+     * @return the number of misses
+     */
+    public long getMisses()
+    {
+        return misses;
+    }
+}
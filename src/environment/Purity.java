@@ -0,0 +1,119 @@
+package environment;
+
+import java.util.List;
+
+import ast.*;
+import ast.Number;
+
+/**
+ * Purity decides which procedures of a resolved Program are pure functions of their
+ * arguments: they read and write only their own frame, print nothing and call only pure
+ * procedures. The result of a call to a pure procedure depends only on its arguments, so
+ * it may be memoized. Every procedure starts out assumed pure, and any procedure found to
+ * break a rule, or to call one that does, is marked impure until nothing changes, so
+ * recursive procedures are handled.
+ *
+ * @author Montek Kalsi
+ * @version 10/17/26
+ */
+public class Purity
+{
+    /**
+     * Constructs nothing; Purity only has static methods.
+     */
+    private Purity()
+    {
+    }
+
+    /**
+     * Marks each procedure of a resolved Program as pure or impure.
+     * @param program the resolved program
+     */
+    public static void analyze(Program program)
+    {
+        List<ProcedureDeclaration> procs = program.getProcedures();
+        for (ProcedureDeclaration proc : procs)
+            proc.setPure(true);
+        boolean changed = true;
+        while (changed)
+        {
+            changed = false;
+            for (ProcedureDeclaration proc : procs)
+                if (proc.isPure() && !statement(proc.getStmt()))
+                {
+                    proc.setPure(false);
+                    changed = true;
+                }
+        }
+    }
+
+    /**
+     * Checks whether a statement inside a procedure stays within its frame.
+     * @param stmt the statement
+     * @return true if it is pure
+     */
+    private static boolean statement(Statement stmt)
+    {
+        if (stmt instanceof Writeln)
+            return false;
+        if (stmt instanceof Assignment)
+        {
+            Assignment assign = (Assignment) stmt;
+            return assign.getDepth() == 0 && expression(assign.getExpression());
+        }
+        if (stmt instanceof Block)
+        {
+            for (Statement s : ((Block) stmt).getStatements())
+                if (!statement(s))
+                    return false;
+            return true;
+        }
+        if (stmt instanceof If)
+        {
+            If ifStmt = (If) stmt;
+            return expression(ifStmt.getCondition()) && statement(ifStmt.getStatement())
+                    && (ifStmt.getElse() == null || statement(ifStmt.getElse()));
+        }
+        if (stmt instanceof While)
+        {
+            While loop = (While) stmt;
+            return expression(loop.getCondition()) && statement(loop.getStatement());
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether an expression inside a procedure reads only its frame and calls only
+     * pure procedures.
+     * @param exp the expression
+     * @return true if it is pure
+     */
+    private static boolean expression(Expression exp)
+    {
+        if (exp instanceof Number)
+            return true;
+        if (exp instanceof Variable)
+            return ((Variable) exp).getDepth() == 0;
+        if (exp instanceof BinOp)
+        {
+            BinOp bin = (BinOp) exp;
+            return expression(bin.getLeft()) && expression(bin.getRight());
+        }
+        if (exp instanceof Condition)
+        {
+            Condition cond = (Condition) exp;
+            return expression(cond.getLeft()) && expression(cond.getRight());
+        }
+        if (exp instanceof ProcedureCall)
+        {
+            ProcedureCall call = (ProcedureCall) exp;
+            if (!call.getDeclaration().isPure())
+                return false;
+            for (Expression arg : call.getArgs())
+                if (!expression(arg))
+                    return false;
+            return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,182 @@
+package environment;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import ast.*;
+import ast.Number;
+
+/**
+ * The Resolver is a static pass over a Program that decides where every variable lives
+ * at run time, so the interpreter never looks a variable up by name. Inside a procedure,
+ * the procedure's own name is slot 0 of its frame, the arguments take the next slots and
+ * the local variables the ones after. Every other name is a global, with the declared
+ * VAR globals first. A variable is resolved to (depth, slot): depth 0 is the current
+ * Environment and depth 1, used for globals inside a procedure, is its parent. Each
+ * ProcedureCall is also linked directly to its ProcedureDeclaration, and each procedure
+ * is marked pure or impure by Purity.
+ *
+ * @author Montek Kalsi
+ * @version 10/17/26
+ */
+public class Resolver
+{
+    private Map<String,ProcedureDeclaration> procedures;
+    private List<String> globals;
+    private ProcedureDeclaration current;
+
+    /**
+     * Constructs a resolver with no globals or procedures.
+     */
+    private Resolver()
+    {
+        procedures = new HashMap<String,ProcedureDeclaration>();
+        globals = new ArrayList<String>();
+    }
+
+    /**
+     * Resolves every variable and call of a Program, and records its globals.
+     * @param program the program to resolve
+     * @throws IllegalArgumentException if a call names an unknown procedure or passes the
+     * wrong number of arguments
+     */
+    public static void resolve(Program program)
+    {
+        Resolver r = new Resolver();
+        for (String var : program.getVariables())
+            r.global(var);
+        for (ProcedureDeclaration proc : program.getProcedures())
+        {
+            r.procedures.put(proc.getName(), proc);
+            proc.setFrameSize(1 + proc.getArgs().size() + proc.getVars().size());
+        }
+        for (ProcedureDeclaration proc : program.getProcedures())
+        {
+            r.current = proc;
+            r.statement(proc.getStmt());
+        }
+        r.current = null;
+        r.statement(program.getStatement());
+        Purity.analyze(program);
+        program.setGlobals(r.globals);
+    }
+
+    /**
+     * Finds the slot of a global, adding it if it is new.
+     * @param name the name of the global
+     * @return its slot
+     */
+    private int global(String name)
+    {
+        int slot = globals.indexOf(name);
+        if (slot < 0)
+        {
+            globals.add(name);
+            slot = globals.size() - 1;
+        }
+        return slot;
+    }
+
+    /**
+     * Finds where a name lives from the point of view of the code being resolved.
+     * @param name the variable name
+     * @return the depth and the slot of the variable
+     */
+    private int[] locate(String name)
+    {
+        if (current != null)
+        {
+            if (name.equals(current.getName()))
+                return new int[] {0, 0};
+            int arg = current.getArgs().indexOf(name);
+            if (arg >= 0)
+                return new int[] {0, 1 + arg};
+            int var = current.getVars().indexOf(name);
+            if (var >= 0)
+                return new int[] {0, 1 + current.getArgs().size() + var};
+            return new int[] {1, global(name)};
+        }
+        return new int[] {0, global(name)};
+    }
+
+    /**
+     * Resolves the variables and calls in a statement.
+     * @param stmt the statement
+     */
+    private void statement(Statement stmt)
+    {
+        if (stmt instanceof Writeln)
+            expression(((Writeln) stmt).getExpression());
+        else if (stmt instanceof Assignment)
+        {
+            Assignment assign = (Assignment) stmt;
+            expression(assign.getExpression());
+            int[] where = locate(assign.getVariable());
+            assign.resolve(where[0], where[1]);
+        }
+        else if (stmt instanceof Block)
+        {
+            for (Statement s : ((Block) stmt).getStatements())
+                statement(s);
+        }
+        else if (stmt instanceof If)
+        {
+            If ifStmt = (If) stmt;
+            expression(ifStmt.getCondition());
+            statement(ifStmt.getStatement());
+            if (ifStmt.getElse() != null)
+                statement(ifStmt.getElse());
+        }
+        else if (stmt instanceof While)
+        {
+            expression(((While) stmt).getCondition());
+            statement(((While) stmt).getStatement());
+        }
+        else
+            throw new IllegalArgumentException("cannot resolve "
+                    + stmt.getClass().getSimpleName());
+    }
+
+    /**
+     * Resolves the variables and calls in an expression.
+     * @param exp the expression
+     */
+    private void expression(Expression exp)
+    {
+        if (exp instanceof Number)
+            return;
+        if (exp instanceof Variable)
+        {
+            Variable var = (Variable) exp;
+            int[] where = locate(var.getName());
+            var.resolve(where[0], where[1]);
+        }
+        else if (exp instanceof BinOp)
+        {
+            expression(((BinOp) exp).getLeft());
+            expression(((BinOp) exp).getRight());
+        }
+        else if (exp instanceof Condition)
+        {
+            expression(((Condition) exp).getLeft());
+            expression(((Condition) exp).getRight());
+        }
+        else if (exp instanceof ProcedureCall)
+        {
+            ProcedureCall call = (ProcedureCall) exp;
+            ProcedureDeclaration decl = procedures.get(call.getId());
+            if (decl == null)
+                throw new IllegalArgumentException("no procedure named " + call.getId());
+            if (decl.getArgs().size() != call.getArgs().size())
+                throw new IllegalArgumentException("parameters don't match the arguments");
+            for (Expression arg : call.getArgs())
+                expression(arg);
+            call.setDeclaration(decl);
+        }
+        else
+            throw new IllegalArgumentException("cannot resolve "
+                    + exp.getClass().getSimpleName());
+    }
+}
@@ -0,0 +1,257 @@
+package flat;
+
+import emitter.Emitter;
+
+/**
+ * FlatCompiler generates MIPS code from a FlatProgram. It emits the same code as
+ * Program.compile does for the tree: globals are words in the data segment, and locals
+ * live in the procedure's stack frame, addressed relative to $sp.
+ *
+ * @author Montek Kalsi
+ * @version 10/17/26
+ */
+public class FlatCompiler
+{
+    private FlatProgram flat;
+    private Emitter e;
+    private int argCount;
+
+    /**
+     * Constructs a compiler writing through an emitter.
+     * @param flat the program to compile
+     * @param e the emitter that emits statements to the file
+     */
+    private FlatCompiler(FlatProgram flat, Emitter e)
+    {
+        this.flat = flat;
+        this.e = e;
+    }
+
+    /**
+     * Compiles a FlatProgram into a MIPS file.
+     * @param flat the program to compile
+     * @param file the name of the output file
+     */
+    public static void compile(FlatProgram flat, String file)
+    {
+        Emitter emt = new Emitter(file);
+        FlatCompiler compiler = new FlatCompiler(flat, emt);
+        emt.emit(".data");
+        emt.emit("newline: .asciiz \"\\n\" ");
+        for (String s : flat.getGlobals())
+            emt.emit(s + ": .word 0");
+        emt.emit(".text");
+        emt.emit(".globl main");
+        emt.emit("main:");
+        compiler.statement(flat.getMain());
+        emt.emit("li $v0,10");
+        emt.emit("syscall");
+        for (int p = 0; p < flat.procedureCount(); p++)
+            compiler.procedure(p);
+        emt.close();
+    }
+
+    /**
+     * Compiles a procedure: the prologue pushes the return value, $ra and the zeroed
+     * locals, and the epilogue pops them along with the arguments.
+     * @param p the index of the procedure
+     */
+    private void procedure(int p)
+    {
+        argCount = flat.procedureArgs(p);
+        int locals = flat.procedureFrame(p) - 1 - argCount;
+        e.emit("proc" + flat.procedureName(p) + ":");
+        e.emitPush("$v0");
+        e.beginFrame();
+        e.emitPush("$ra");
+        e.emit("li $t7, 0");
+        for (int i = 0; i < locals; i++)
+            e.emitPush("$t7");
+        statement(flat.procedureBody(p));
+        for (int i = 0; i < locals; i++)
+            e.emitPop("$t7");
+        e.emitPop("$ra");
+        e.emitPop("$v0");
+        for (int i = 0; i < argCount; i++)
+            e.emitPop("$t0");
+        e.emit("jr $ra");
+    }
+
+    /**
+     * Computes the $sp offset of a frame slot of the current procedure.
+     * @param slot the frame slot
+     * @return the byte offset from $sp
+     */
+    private int offset(int slot)
+    {
+        if (slot <= argCount)
+            return e.getFrameOffset(-slot);
+        return e.getFrameOffset(2 + slot - 1 - argCount);
+    }
+
+    /**
+     * Compiles a statement node.
+     * @param node the statement
+     */
+    private void statement(int node)
+    {
+        FlatProgram f = flat;
+        switch (f.opcode(node))
+        {
+            case FlatProgram.WRITELN:
+                expression(f.a(node));
+                e.emit("move $a0,$v0\t#moves the number from $v0 to $a0 to be printed");
+                e.emit("li $v0, 1");
+                e.emit("syscall\t#prints the number that was in $v0");
+                e.emit("la $a0, newline\t#loads the new line address in $a0 to be printed");
+                e.emit("li $v0, 4");
+                e.emit("syscall\t#prints out a new line");
+                break;
+            case FlatProgram.SET_GLOBAL:
+            {
+                expression(f.b(node));
+                String name = f.getGlobals().get(f.a(node));
+                e.emit("sw $v0, " + name + " \t #assigns the value of the expression(in $v0) to "
+                        + name);
+                break;
+            }
+            case FlatProgram.SET_LOCAL:
+                expression(f.b(node));
+                e.emit("sw $v0, " + offset(f.a(node)) + "($sp) \t #assigns the value of the "
+                        + "expression(in $v0) to a local");
+                break;
+            case FlatProgram.BLOCK:
+            {
+                int end = f.a(node) + f.b(node);
+                for (int i = f.a(node); i < end; i++)
+                    statement(f.child(i));
+                break;
+            }
+            case FlatProgram.IF:
+            {
+                int id = e.nextLabelID();
+                String label = "endif" + id;
+                String finish = "finish" + id;
+                branchIfFalse(f.a(node), label);
+                statement(f.b(node));
+                if (f.c(node) >= 0)
+                {
+                    e.emit("j " + finish);
+                    e.emit(label + ":");
+                    statement(f.c(node));
+                    e.emit(finish + ":");
+                }
+                else
+                    e.emit(label + ":");
+                break;
+            }
+            case FlatProgram.WHILE:
+            {
+                String temp = "loop" + e.next();
+                String etemp = "endloop" + e.endnext();
+                e.emit(temp + ":");
+                branchIfFalse(f.a(node), etemp);
+                statement(f.b(node));
+                e.emit("j " + temp);
+                e.emit(etemp + ":");
+                break;
+            }
+            default:
+                throw new IllegalStateException("not a statement: " + f.opcode(node));
+        }
+    }
+
+    /**
+     * Compiles a comparison node into a branch taken when the comparison is false.
+     * @param node the comparison
+     * @param target the label branched to when it is false
+     */
+    private void branchIfFalse(int node, String target)
+    {
+        FlatProgram f = flat;
+        expression(f.a(node));
+        e.emitPush("$v0");
+        expression(f.b(node));
+        e.emitPop("$t0");
+        String branch;
+        switch (f.opcode(node))
+        {
+            case FlatProgram.EQ: branch = "bne"; break;
+            case FlatProgram.NE: branch = "beq"; break;
+            case FlatProgram.GT: branch = "ble"; break;
+            case FlatProgram.LT: branch = "bge"; break;
+            case FlatProgram.LE: branch = "bgt"; break;
+            case FlatProgram.GE: branch = "blt"; break;
+            default:
+                throw new IllegalStateException("not a comparison: " + f.opcode(node));
+        }
+        e.emit(branch + " $t0, $v0, " + target);
+    }
+
+    /**
+     * Compiles an expression node, leaving its value in $v0.
+     * @param node the expression
+     */
+    private void expression(int node)
+    {
+        FlatProgram f = flat;
+        int op = f.opcode(node);
+        switch (op)
+        {
+            case FlatProgram.CONST:
+                e.emit("li $v0," + f.a(node) + "\t #sets $v0 to " + f.a(node));
+                return;
+            case FlatProgram.GLOBAL:
+            {
+                String name = f.getGlobals().get(f.a(node));
+                e.emit("la $t0, " + name);
+                e.emit("lw $v0, ($t0) \t#loads value of " + name + " into $v0");
+                return;
+            }
+            case FlatProgram.LOCAL:
+                e.emit("lw $v0, " + offset(f.a(node)) + "($sp) \t#loads a local into $v0");
+                return;
+            case FlatProgram.CALL:
+            {
+                int first = f.b(node);
+                for (int i = f.c(node) - 1; i >= 0; i--)
+                {
+                    expression(f.child(first + i));
+                    e.emitPush("$v0");
+                }
+                e.emit("jal proc" + f.procedureName(f.a(node)));
+                e.stackPopped(f.c(node));
+                return;
+            }
+            default:
+                break;
+        }
+        expression(f.a(node));
+        e.emitPush("$v0");
+        expression(f.b(node));
+        e.emitPop("$t0");
+        switch (op)
+        {
+            case FlatProgram.ADD:
+                e.emit("addu $v0, $t0, $v0");
+                break;
+            case FlatProgram.SUB:
+                e.emit("subu $v0, $t0, $v0");
+                break;
+            case FlatProgram.MUL:
+                e.emit("mult $t0, $v0");
+                e.emit("mflo $v0");
+                break;
+            case FlatProgram.DIV:
+                e.emit("div $t0, $v0");
+                e.emit("mflo $v0");
+                break;
+            case FlatProgram.MOD:
+                e.emit("div $t0, $v0");
+                e.emit("mfhi $v0");
+                break;
+            default:
+                throw new IllegalStateException("not an arithmetic operator: " + op);
+        }
+    }
+}
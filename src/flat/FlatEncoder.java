@@ -0,0 +1,199 @@
+package flat;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import ast.*;
+import ast.Number;
+
+/**
+ * FlatEncoder translates a Program into a FlatProgram. Variables are resolved to slots
+ * as they are encoded: inside a procedure, its own name, its arguments and its local
+ * variables are frame slots, and every other name is a global slot.
+ *
+ * @author Montek Kalsi
+ * @version 10/17/26
+ */
+public class FlatEncoder
+{
+    private FlatProgram flat;
+    private Map<String,Integer> procedures;
+    private ProcedureDeclaration current;
+
+    /**
+     * Constructs an encoder with an empty FlatProgram.
+     */
+    private FlatEncoder()
+    {
+        flat = new FlatProgram();
+        procedures = new HashMap<String,Integer>();
+    }
+
+    /**
+     * Encodes a whole Program.
+     * @param program the program to encode
+     * @return the flat encoding of the program
+     */
+    public static FlatProgram encode(Program program)
+    {
+        FlatEncoder encoder = new FlatEncoder();
+        FlatProgram flat = encoder.flat;
+        for (String var : program.getVariables())
+            flat.global(var);
+        for (ProcedureDeclaration proc : program.getProcedures())
+        {
+            int frame = 1 + proc.getArgs().size() + proc.getVars().size();
+            encoder.procedures.put(proc.getName(),
+                    flat.declareProcedure(proc.getName(), proc.getArgs().size(), frame));
+        }
+        for (ProcedureDeclaration proc : program.getProcedures())
+        {
+            encoder.current = proc;
+            flat.setProcedureBody(encoder.procedures.get(proc.getName()),
+                    encoder.statement(proc.getStmt()));
+        }
+        encoder.current = null;
+        flat.setMain(encoder.statement(program.getStatement()));
+        return flat;
+    }
+
+    /**
+     * Finds the frame slot of a name in the procedure being encoded.
+     * @param name the variable name
+     * @return the frame slot, or -1 if the name is global
+     */
+    private int localSlot(String name)
+    {
+        if (current == null)
+            return -1;
+        if (name.equals(current.getName()))
+            return 0;
+        int arg = current.getArgs().indexOf(name);
+        if (arg >= 0)
+            return 1 + arg;
+        int var = current.getVars().indexOf(name);
+        if (var >= 0)
+            return 1 + current.getArgs().size() + var;
+        return -1;
+    }
+
+    /**
+     * Encodes an expression.
+     * @param exp the expression
+     * @return the index of its node
+     */
+    private int expression(Expression exp)
+    {
+        if (exp instanceof Number)
+            return flat.add(FlatProgram.CONST, ((Number) exp).getValue(), 0, 0);
+        if (exp instanceof Variable)
+        {
+            String name = ((Variable) exp).getName();
+            int slot = localSlot(name);
+            if (slot >= 0)
+                return flat.add(FlatProgram.LOCAL, slot, 0, 0);
+            return flat.add(FlatProgram.GLOBAL, flat.global(name), 0, 0);
+        }
+        if (exp instanceof BinOp)
+        {
+            BinOp bin = (BinOp) exp;
+            int left = expression(bin.getLeft());
+            int right = expression(bin.getRight());
+            return flat.add(operator(bin.getOperator()), left, right, 0);
+        }
+        if (exp instanceof Condition)
+        {
+            Condition cond = (Condition) exp;
+            int left = expression(cond.getLeft());
+            int right = expression(cond.getRight());
+            return flat.add(operator(cond.getOperator()), left, right, 0);
+        }
+        if (exp instanceof ProcedureCall)
+        {
+            ProcedureCall call = (ProcedureCall) exp;
+            Integer proc = procedures.get(call.getId());
+            if (proc == null)
+                throw new IllegalArgumentException("no procedure named " + call.getId());
+            List<Expression> args = call.getArgs();
+            if (args.size() != flat.procedureArgs(proc))
+                throw new IllegalArgumentException("parameters don't match the arguments");
+            int[] nodes = new int[args.size()];
+            for (int i = 0; i < nodes.length; i++)
+                nodes[i] = expression(args.get(i));
+            return flat.add(FlatProgram.CALL, proc, flat.addChildren(nodes, nodes.length),
+                    nodes.length);
+        }
+        throw new IllegalArgumentException("cannot encode " + exp.getClass().getSimpleName());
+    }
+
+    /**
+     * Encodes a statement.
+     * @param stmt the statement
+     * @return the index of its node
+     */
+    private int statement(Statement stmt)
+    {
+        if (stmt instanceof Writeln)
+            return flat.add(FlatProgram.WRITELN, expression(((Writeln) stmt).getExpression()),
+                    0, 0);
+        if (stmt instanceof Assignment)
+        {
+            Assignment assign = (Assignment) stmt;
+            int value = expression(assign.getExpression());
+            int slot = localSlot(assign.getVariable());
+            if (slot >= 0)
+                return flat.add(FlatProgram.SET_LOCAL, slot, value, 0);
+            return flat.add(FlatProgram.SET_GLOBAL, flat.global(assign.getVariable()), value, 0);
+        }
+        if (stmt instanceof Block)
+        {
+            List<Statement> stmts = ((Block) stmt).getStatements();
+            int[] nodes = new int[stmts.size()];
+            for (int i = 0; i < nodes.length; i++)
+                nodes[i] = statement(stmts.get(i));
+            return flat.add(FlatProgram.BLOCK, flat.addChildren(nodes, nodes.length),
+                    nodes.length, 0);
+        }
+        if (stmt instanceof If)
+        {
+            If ifStmt = (If) stmt;
+            int cond = expression(ifStmt.getCondition());
+            int then = statement(ifStmt.getStatement());
+            int elses = ifStmt.getElse() == null ? -1 : statement(ifStmt.getElse());
+            return flat.add(FlatProgram.IF, cond, then, elses);
+        }
+        if (stmt instanceof While)
+        {
+            While loop = (While) stmt;
+            int cond = expression(loop.getCondition());
+            return flat.add(FlatProgram.WHILE, cond, statement(loop.getStatement()), 0);
+        }
+        throw new IllegalArgumentException("cannot encode " + stmt.getClass().getSimpleName());
+    }
+
+    /**
+     * Maps a BinOp or Condition operator to its opcode.
+     * @param op the operator
+     * @return the opcode
+     */
+    private static int operator(String op)
+    {
+        switch (op)
+        {
+            case "+": return FlatProgram.ADD;
+            case "-": return FlatProgram.SUB;
+            case "*": return FlatProgram.MUL;
+            case "/": return FlatProgram.DIV;
+            case "%": return FlatProgram.MOD;
+            case "=": return FlatProgram.EQ;
+            case "<>": return FlatProgram.NE;
+            case "<": return FlatProgram.LT;
+            case ">": return FlatProgram.GT;
+            case "<=": return FlatProgram.LE;
+            case ">=": return FlatProgram.GE;
+            default:
+                throw new IllegalArgumentException("unknown operator " + op);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package flat;
+
+import output.BufferedSink;
+import output.OutputSink;
+
+/**
+ * FlatInterpreter executes a FlatProgram by walking its node arrays directly. Globals
+ * live in one int array and each procedure call gets an int array frame sized from the
+ * procedure, so no variable is ever looked up by name.
+ *
+ * @author Montek Kalsi
+ * @version 10/17/26
+ */
+public class FlatInterpreter
+{
+    private FlatProgram flat;
+    private int[] globals;
+    private OutputSink output;
+
+    /**
+     * Constructs an interpreter for a FlatProgram with all globals set to 0.
+     * @param flat the program to run
+     */
+    public FlatInterpreter(FlatProgram flat)
+    {
+        this.flat = flat;
+        globals = new int[flat.getGlobals().size()];
+    }
+
+    /**
+     * Sets where WRITELN prints; by default it is a buffered sink on System.out.
+     * @param output the sink
+     */
+    public void setOutput(OutputSink output)
+    {
+        this.output = output;
+    }
+
+    /**
+     * Runs the main statement of the program, then flushes the output.
+     */
+    public void run()
+    {
+        if (output == null)
+            output = new BufferedSink(System.out);
+        try
+        {
+            exec(flat.getMain(), null);
+        }
+        finally
+        {
+            output.flush();
+        }
+    }
+
+    /**
+     * Outputs the value of a global after running.
+     * @param name the name of the global
+     * @return its value
+     */
+    public int getGlobal(String name)
+    {
+        return globals[flat.getGlobals().indexOf(name)];
+    }
+
+    /**
+     * Executes a statement node.
+     * @param node the statement
+     * @param frame the frame of the current procedure, or null at the top level
+     */
+    private void exec(int node, int[] frame)
+    {
+        FlatProgram f = flat;
+        switch (f.opcode(node))
+        {
+            case FlatProgram.WRITELN:
+                output.writeInt(eval(f.a(node), frame));
+                break;
+            case FlatProgram.SET_GLOBAL:
+                globals[f.a(node)] = eval(f.b(node), frame);
+                break;
+            case FlatProgram.SET_LOCAL:
+                frame[f.a(node)] = eval(f.b(node), frame);
+                break;
+            case FlatProgram.BLOCK:
+            {
+                int end = f.a(node) + f.b(node);
+                for (int i = f.a(node); i < end; i++)
+                    exec(f.child(i), frame);
+                break;
+            }
+            case FlatProgram.IF:
+                if (eval(f.a(node), frame) != 0)
+                    exec(f.b(node), frame);
+                else if (f.c(node) >= 0)
+                    exec(f.c(node), frame);
+                break;
+            case FlatProgram.WHILE:
+                while (eval(f.a(node), frame) != 0)
+                    exec(f.b(node), frame);
+                break;
+            default:
+                throw new IllegalStateException("not a statement: " + f.opcode(node));
+        }
+    }
+
+    /**
+     * Evaluates an expression node.
+     * @param node the expression
+     * @param frame the frame of the current procedure, or null at the top level
+     * @return the value of the expression
+     */
+    private int eval(int node, int[] frame)
+    {
+        FlatProgram f = flat;
+        switch (f.opcode(node))
+        {
+            case FlatProgram.CONST:
+                return f.a(node);
+            case FlatProgram.GLOBAL:
+                return globals[f.a(node)];
+            case FlatProgram.LOCAL:
+                return frame[f.a(node)];
+            case FlatProgram.ADD:
+                return eval(f.a(node), frame) + eval(f.b(node), frame);
+            case FlatProgram.SUB:
+                return eval(f.a(node), frame) - eval(f.b(node), frame);
+            case FlatProgram.MUL:
+                return eval(f.a(node), frame) * eval(f.b(node), frame);
+            case FlatProgram.DIV:
+                return eval(f.a(node), frame) / eval(f.b(node), frame);
+            case FlatProgram.MOD:
+                return eval(f.a(node), frame) % eval(f.b(node), frame);
+            case FlatProgram.EQ:
+                return eval(f.a(node), frame) == eval(f.b(node), frame) ? 1 : 0;
+            case FlatProgram.NE:
+                return eval(f.a(node), frame) != eval(f.b(node), frame) ? 1 : 0;
+            case FlatProgram.LT:
+                return eval(f.a(node), frame) < eval(f.b(node), frame) ? 1 : 0;
+            case FlatProgram.GT:
+                return eval(f.a(node), frame) > eval(f.b(node), frame) ? 1 : 0;
+            case FlatProgram.LE:
+                return eval(f.a(node), frame) <= eval(f.b(node), frame) ? 1 : 0;
+            case FlatProgram.GE:
+                return eval(f.a(node), frame) >= eval(f.b(node), frame) ? 1 : 0;
+            case FlatProgram.CALL:
+            {
+                int proc = f.a(node);
+                int[] callee = new int[f.procedureFrame(proc)];
+                int first = f.b(node);
+                for (int i = 0; i < f.c(node); i++)
+                    callee[1 + i] = eval(f.child(first + i), frame);
+                exec(f.procedureBody(proc), callee);
+                return callee[0];
+            }
+            default:
+                throw new IllegalStateException("not an expression: " + f.opcode(node));
+        }
+    }
+}
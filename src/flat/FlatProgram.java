@@ -0,0 +1,293 @@
+package flat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A FlatProgram is a Program stored as parallel int arrays instead of a tree of node
+ * objects. Node i has an opcode and up to three int fields a, b and c, which hold child
+ * node indices, constants or variable slots depending on the opcode. Nodes with a
+ * variable number of children (blocks and calls) keep them as a run of node indices in
+ * the children array. Every variable is already resolved to a slot: globals index the
+ * global array, and locals index the frame of the current procedure, where slot 0 is
+ * the return value, the arguments follow, and then the local variables.
+ *
+ * @author Montek Kalsi
+ * @version 10/17/26
+ */
+public class FlatProgram
+{
+    // expressions
+    public static final int CONST = 0;      // a = value
+    public static final int GLOBAL = 1;     // a = global slot
+    public static final int LOCAL = 2;      // a = frame slot
+    public static final int ADD = 3;        // a = left, b = right
+    public static final int SUB = 4;
+    public static final int MUL = 5;
+    public static final int DIV = 6;
+    public static final int MOD = 7;
+    public static final int EQ = 8;         // a = left, b = right; 1 if true, else 0
+    public static final int NE = 9;
+    public static final int LT = 10;
+    public static final int GT = 11;
+    public static final int LE = 12;
+    public static final int GE = 13;
+    public static final int CALL = 14;      // a = procedure, b = first child, c = count
+
+    // statements
+    public static final int WRITELN = 15;   // a = expression
+    public static final int SET_GLOBAL = 16; // a = global slot, b = expression
+    public static final int SET_LOCAL = 17; // a = frame slot, b = expression
+    public static final int BLOCK = 18;     // a = first child, b = count
+    public static final int IF = 19;        // a = condition, b = then, c = else or -1
+    public static final int WHILE = 20;     // a = condition, b = body
+
+    private int[] opcode = new int[64];
+    private int[] a = new int[64];
+    private int[] b = new int[64];
+    private int[] c = new int[64];
+    private int size;
+
+    private int[] children = new int[64];
+    private int childCount;
+
+    private List<String> globals = new ArrayList<String>();
+    private List<String> procNames = new ArrayList<String>();
+    private int[] procBody = new int[8];
+    private int[] procArgs = new int[8];
+    private int[] procFrame = new int[8];
+    private int main = -1;
+
+    /**
+     * Appends a node.
+     * @param op the opcode of the node
+     * @param x the a field
+     * @param y the b field
+     * @param z the c field
+     * @return the index of the new node
+     */
+    public int add(int op, int x, int y, int z)
+    {
+        if (size == opcode.length)
+        {
+            opcode = grow(opcode);
+            a = grow(a);
+            b = grow(b);
+            c = grow(c);
+        }
+        opcode[size] = op;
+        a[size] = x;
+        b[size] = y;
+        c[size] = z;
+        return size++;
+    }
+
+    /**
+     * Appends a run of child node indices.
+     * @param nodes the child node indices
+     * @param count the number of children
+     * @return the index of the first child in the children array
+     */
+    public int addChildren(int[] nodes, int count)
+    {
+        while (childCount + count > children.length)
+            children = grow(children);
+        System.arraycopy(nodes, 0, children, childCount, count);
+        int first = childCount;
+        childCount += count;
+        return first;
+    }
+
+    /**
+     * Adds a global variable, or finds the one with the same name.
+     * @param name the name of the global
+     * @return the slot of the global
+     */
+    public int global(String name)
+    {
+        int slot = globals.indexOf(name);
+        if (slot >= 0)
+            return slot;
+        globals.add(name);
+        return globals.size() - 1;
+    }
+
+    /**
+     * Declares a procedure whose body is set later.
+     * @param name the name of the procedure
+     * @param argCount the number of arguments
+     * @param frameSize the number of frame slots: the return value, arguments and locals
+     * @return the index of the procedure
+     */
+    public int declareProcedure(String name, int argCount, int frameSize)
+    {
+        int p = procNames.size();
+        if (p == procBody.length)
+        {
+            procBody = grow(procBody);
+            procArgs = grow(procArgs);
+            procFrame = grow(procFrame);
+        }
+        procNames.add(name);
+        procArgs[p] = argCount;
+        procFrame[p] = frameSize;
+        return p;
+    }
+
+    /**
+     * Doubles the length of an array.
+     * @param old the array
+     * @return a copy twice as long
+     */
+    private static int[] grow(int[] old)
+    {
+        int[] grown = new int[old.length * 2];
+        System.arraycopy(old, 0, grown, 0, old.length);
+        return grown;
+    }
+
+    /**
+     * Outputs the opcode of a node.
+     * @param node the node index
+     * @return the opcode
+     */
+    public int opcode(int node)
+    {
+        return opcode[node];
+    }
+
+    /**
+     * Outputs the a field of a node.
+     * @param node the node index
+     * @return the a field
+     */
+    public int a(int node)
+    {
+        return a[node];
+    }
+
+    /**
+     * Outputs the b field of a node.
+     * @param node the node index
+     * @return the b field
+     */
+    public int b(int node)
+    {
+        return b[node];
+    }
+
+    /**
+     * Outputs the c field of a node.
+     * @param node the node index
+     * @return the c field
+     */
+    public int c(int node)
+    {
+        return c[node];
+    }
+
+    /**
+     * Outputs one child from the children array.
+     * @param index the index in the children array
+     * @return the child node index
+     */
+    public int child(int index)
+    {
+        return children[index];
+    }
+
+    /**
+     * Outputs the number of nodes.
+     * @return the number of nodes
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Outputs the global variable names, in slot order.
+     * @return the globals
+     */
+    public List<String> getGlobals()
+    {
+        return globals;
+    }
+
+    /**
+     * Outputs the number of procedures.
+     * @return the number of procedures
+     */
+    public int procedureCount()
+    {
+        return procNames.size();
+    }
+
+    /**
+     * Outputs the name of a procedure.
+     * @param p the index of the procedure
+     * @return the name
+     */
+    public String procedureName(int p)
+    {
+        return procNames.get(p);
+    }
+
+    /**
+     * Outputs the root node of a procedure's statement.
+     * @param p the index of the procedure
+     * @return the body
+     */
+    public int procedureBody(int p)
+    {
+        return procBody[p];
+    }
+
+    /**
+     * Outputs the number of arguments of a procedure.
+     * @param p the index of the procedure
+     * @return the number of arguments
+     */
+    public int procedureArgs(int p)
+    {
+        return procArgs[p];
+    }
+
+    /**
+     * Outputs the number of frame slots of a procedure.
+     * @param p the index of the procedure
+     * @return the frame size
+     */
+    public int procedureFrame(int p)
+    {
+        return procFrame[p];
+    }
+
+    /**
+     * Sets the body of a declared procedure.
+     * @param p the index of the procedure
+     * @param body the root node of its statement
+     */
+    public void setProcedureBody(int p, int body)
+    {
+        procBody[p] = body;
+    }
+
+    /**
+     * Outputs the root node of the main statement.
+     * @return the main statement
+     */
+    public int getMain()
+    {
+        return main;
+    }
+
+    /**
+     * Sets the root node of the main statement.
+     * @param node the main statement
+     */
+    public void setMain(int node)
+    {
+        main = node;
+    }
+}
@@ -0,0 +1,156 @@
+package interpreter;
+
+import java.io.File;
+import java.util.Arrays;
+
+import ast.Program;
+import environment.Environment;
+import flat.FlatEncoder;
+import flat.FlatInterpreter;
+import jit.CompiledProgram;
+import jit.JvmCompiler;
+import optimizer.Optimizer;
+import output.CollectingSink;
+import output.OutputSink;
+import parser.Parser;
+import scanner.Scanner;
+import specialize.Specializer;
+import vm.BytecodeCompiler;
+import vm.VirtualMachine;
+
+/**
+ * BackendTester runs every parserTest*.txt fixture on each way of running a Program and
+ * checks that each prints what the tree interpreter prints. A run that throws is
+ * compared by its output so far and the kind of exception. Fixtures that do not parse
+ * are skipped. It prints one line per fixture and engine that differs, and a summary.
+ *
+ * Usage: java interpreter.BackendTester [directory of fixtures, by default src/parser]
+ *
+ * @author Montek Kalsi
+ * @version 10/17/26
+ */
+public class BackendTester
+{
+    /**
+     * A way of running a Program that sends WRITELN to a sink.
+     */
+    private interface Engine
+    {
+        /**
+         * Runs a program.
+         * @param program the program, which other engines share
+         * @param output where WRITELN writes
+         * @throws Exception if the engine cannot run it
+         */
+        void run(Program program, OutputSink output) throws Exception;
+    }
+
+    private static final String[] NAMES =
+            {"vm", "jit", "stack", "flat", "specialized", "optimized"};
+
+    private static final Engine[] ENGINES =
+    {
+        (program, output) ->
+        {
+            VirtualMachine vm = new VirtualMachine(BytecodeCompiler.compile(program));
+            vm.setOutput(output);
+            vm.run();
+        },
+        (program, output) ->
+        {
+            CompiledProgram compiled = JvmCompiler.compile(program);
+            compiled.setOutput(output);
+            compiled.run();
+        },
+        (program, output) ->
+        {
+            StackInterpreter stack = new StackInterpreter(program);
+            stack.setOutput(output);
+            stack.run();
+        },
+        (program, output) ->
+        {
+            FlatInterpreter flat = new FlatInterpreter(FlatEncoder.encode(program));
+            flat.setOutput(output);
+            flat.run();
+        },
+        (program, output) -> tree(Specializer.specialize(program), output),
+        (program, output) -> tree(Optimizer.optimize(program), output)
+    };
+
+    /**
+     * Runs every fixture on every engine.
+     * @param args optionally, the directory of the fixtures
+     */
+    public static void main(String[] args)
+    {
+        File dir = new File(args.length > 0 ? args[0] : "src/parser");
+        File[] fixtures = dir.listFiles((d, name) -> name.matches("parserTest\\d+\\.txt"));
+        if (fixtures == null)
+            throw new IllegalArgumentException("no directory " + dir);
+        Arrays.sort(fixtures);
+        int checks = 0;
+        int failures = 0;
+        for (File fixture : fixtures)
+        {
+            Program program;
+            try
+            {
+                program = new Parser(Scanner.fromFile(fixture)).parseProgram();
+            }
+            catch (Exception e)
+            {
+                System.out.println("SKIP " + fixture.getName() + ": does not parse");
+                continue;
+            }
+            String expected = outcome((p, out) -> tree(p, out), program);
+            for (int i = 0; i < ENGINES.length; i++)
+            {
+                String actual = outcome(ENGINES[i], program);
+                checks++;
+                if (!actual.equals(expected))
+                {
+                    failures++;
+                    System.out.println("FAIL " + fixture.getName() + " on " + NAMES[i]
+                            + ": got [" + actual.replace('\n', ' ') + "] expected ["
+                            + expected.replace('\n', ' ') + "]");
+                }
+            }
+        }
+        System.out.println(failures == 0 ? "all " + checks + " checks passed"
+                : failures + " of " + checks + " checks failed");
+    }
+
+    /**
+     * Runs a program on the tree interpreter.
+     * @param program the program
+     * @param output where WRITELN writes
+     */
+    private static void tree(Program program, OutputSink output)
+    {
+        Environment env = new Environment();
+        env.setOutput(output);
+        program.exec(env);
+    }
+
+    /**
+     * Runs a program on an engine and describes what happened.
+     * @param engine the engine
+     * @param program the program
+     * @return what it printed, followed by the kind of exception if it threw one
+     */
+    private static String outcome(Engine engine, Program program)
+    {
+        CollectingSink sink = new CollectingSink();
+        try
+        {
+            engine.run(program, sink);
+            return sink.getText();
+        }
+        catch (Exception | StackOverflowError e)
+        {
+            sink.flush();
+            return sink.getText() + e.getClass().getSimpleName();
+        }
+    }
+}
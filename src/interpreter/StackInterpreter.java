@@ -0,0 +1,317 @@
+package interpreter;
+
+import java.util.Arrays;
+import java.util.List;
+
+import ast.*;
+import ast.Number;
+import output.BufferedSink;
+import output.OutputSink;
+
+/**
+ * StackInterpreter walks a resolved Program without recursing on the Java stack. Work
+ * still to be done is kept on a heap stack of (node, state) pairs, where the state
+ * records how far the node has got, and the values of expressions go on a separate
+ * value stack. Procedure frames are runs of slots on a third stack, laid out as the
+ * Resolver numbered them, so a call allocates nothing. Every stack doubles when it fills,
+ * which limits recursion only by the heap and lets the interpreter run on a thread with
+ * a small stack.
+ *
+ * @author Montek Kalsi
+ * @version 10/17/26
+ */
+public class StackInterpreter
+{
+    private Program program;
+    private int[] globals;
+    private OutputSink output;
+
+    private Object[] nodes;
+    private int[] states;
+    private int top;
+
+    private int[] values;
+    private int sp;
+
+    private int[] frames;
+    private int fp;
+    private int frameTop;
+
+    /**
+     * Constructs an interpreter with all globals set to 0, resolving the Program first
+     * if needed.
+     * @param program the program to run
+     */
+    public StackInterpreter(Program program)
+    {
+        program.resolve();
+        this.program = program;
+        globals = new int[program.getGlobals().size()];
+    }
+
+    /**
+     * Outputs the value of a global after running.
+     * @param name the name of the global
+     * @return its value
+     */
+    public int getGlobal(String name)
+    {
+        return globals[program.getGlobals().indexOf(name)];
+    }
+
+    /**
+     * Sets where WRITELN prints; by default it is a buffered sink on System.out.
+     * @param output the sink
+     */
+    public void setOutput(OutputSink output)
+    {
+        this.output = output;
+    }
+
+    /**
+     * Runs the main statement until no work is left, then flushes the output.
+     */
+    public void run()
+    {
+        if (output == null)
+            output = new BufferedSink(System.out);
+        nodes = new Object[64];
+        states = new int[64];
+        values = new int[64];
+        frames = new int[256];
+        top = 0;
+        sp = 0;
+        fp = -1;
+        frameTop = 0;
+        push(program.getStatement(), 0);
+        try
+        {
+            while (top > 0)
+            {
+                top--;
+                Object node = nodes[top];
+                nodes[top] = null;
+                step(node, states[top]);
+            }
+        }
+        finally
+        {
+            output.flush();
+        }
+    }
+
+    /**
+     * Pushes work onto the work stack.
+     * @param node the node to run
+     * @param state how far the node has got, 0 if it has not started
+     */
+    private void push(Object node, int state)
+    {
+        if (top == nodes.length)
+        {
+            nodes = Arrays.copyOf(nodes, top * 2);
+            states = Arrays.copyOf(states, top * 2);
+        }
+        nodes[top] = node;
+        states[top++] = state;
+    }
+
+    /**
+     * Pushes a value onto the value stack.
+     * @param value the value
+     */
+    private void pushValue(int value)
+    {
+        if (sp == values.length)
+            values = Arrays.copyOf(values, sp * 2);
+        values[sp++] = value;
+    }
+
+    /**
+     * Reads a variable. Depth 0 inside a procedure is the procedure's frame; everything
+     * else is a global.
+     * @param depth the depth found by the Resolver
+     * @param slot the slot found by the Resolver
+     * @return the value of the variable
+     */
+    private int load(int depth, int slot)
+    {
+        if (depth == 0 && fp >= 0)
+            return frames[fp + slot];
+        return globals[slot];
+    }
+
+    /**
+     * Writes a variable.
+     * @param depth the depth found by the Resolver
+     * @param slot the slot found by the Resolver
+     * @param value the value to store
+     */
+    private void store(int depth, int slot, int value)
+    {
+        if (depth == 0 && fp >= 0)
+            frames[fp + slot] = value;
+        else
+            globals[slot] = value;
+    }
+
+    /**
+     * Takes the next step of a node: either finishes it or pushes the node back with a
+     * later state above the work it is waiting for.
+     * @param node the node
+     * @param state how far the node has got
+     */
+    private void step(Object node, int state)
+    {
+        if (node instanceof Number)
+            pushValue(((Number) node).getValue());
+        else if (node instanceof Variable)
+        {
+            Variable var = (Variable) node;
+            pushValue(load(var.getDepth(), var.getSlot()));
+        }
+        else if (node instanceof Condition)
+            condition((Condition) node, state);
+        else if (node instanceof BinOp)
+            binOp((BinOp) node, state);
+        else if (node instanceof ProcedureCall)
+            call((ProcedureCall) node, state);
+        else if (node instanceof Block)
+        {
+            List<Statement> stmts = ((Block) node).getStatements();
+            if (state < stmts.size())
+            {
+                push(node, state + 1);
+                push(stmts.get(state), 0);
+            }
+        }
+        else if (node instanceof Assignment)
+        {
+            Assignment assign = (Assignment) node;
+            if (state == 0)
+            {
+                push(node, 1);
+                push(assign.getExpression(), 0);
+            }
+            else
+                store(assign.getDepth(), assign.getSlot(), values[--sp]);
+        }
+        else if (node instanceof Writeln)
+        {
+            if (state == 0)
+            {
+                push(node, 1);
+                push(((Writeln) node).getExpression(), 0);
+            }
+            else
+                output.writeInt(values[--sp]);
+        }
+        else if (node instanceof If)
+        {
+            If ifStmt = (If) node;
+            if (state == 0)
+            {
+                push(node, 1);
+                push(ifStmt.getCondition(), 0);
+            }
+            else if (values[--sp] != 0)
+                push(ifStmt.getStatement(), 0);
+            else if (ifStmt.getElse() != null)
+                push(ifStmt.getElse(), 0);
+        }
+        else if (node instanceof While)
+        {
+            While loop = (While) node;
+            if (state == 0)
+            {
+                push(node, 1);
+                push(loop.getCondition(), 0);
+            }
+            else if (values[--sp] != 0)
+            {
+                push(node, 0);
+                push(loop.getStatement(), 0);
+            }
+        }
+        else
+            throw new IllegalArgumentException("cannot interpret "
+                    + node.getClass().getSimpleName());
+    }
+
+    /**
+     * Steps an arithmetic expression.
+     * @param bin the expression
+     * @param state 0 to evaluate the operands, 1 to combine them
+     */
+    private void binOp(BinOp bin, int state)
+    {
+        if (state == 0)
+        {
+            push(bin, 1);
+            push(bin.getRight(), 0);
+            push(bin.getLeft(), 0);
+            return;
+        }
+        int right = values[--sp];
+        values[sp - 1] = bin.apply(values[sp - 1], right);
+    }
+
+    /**
+     * Steps a relational expression.
+     * @param cond the condition
+     * @param state 0 to evaluate the operands, 1 to compare them
+     */
+    private void condition(Condition cond, int state)
+    {
+        if (state == 0)
+        {
+            push(cond, 1);
+            push(cond.getRight(), 0);
+            push(cond.getLeft(), 0);
+            return;
+        }
+        int right = values[--sp];
+        values[sp - 1] = cond.compare(values[sp - 1], right) ? 1 : 0;
+    }
+
+    /**
+     * Steps a procedure call. State 0 evaluates the arguments, state 1 moves them into a
+     * new frame and starts the body, and state 2 pops the frame and leaves the return
+     * value. The caller's frame pointer waits on the value stack under the call.
+     * @param call the call
+     * @param state how far the call has got
+     */
+    private void call(ProcedureCall call, int state)
+    {
+        List<Expression> args = call.getArgs();
+        ProcedureDeclaration proc = call.getDeclaration();
+        if (state == 0)
+        {
+            push(call, 1);
+            for (int i = args.size() - 1; i >= 0; i--)
+                push(args.get(i), 0);
+        }
+        else if (state == 1)
+        {
+            int size = proc.getFrameSize();
+            if (frameTop + size > frames.length)
+                frames = Arrays.copyOf(frames, Math.max(frames.length * 2, frameTop + size));
+            int base = frameTop;
+            Arrays.fill(frames, base, base + size, 0);
+            sp -= args.size();
+            System.arraycopy(values, sp, frames, base + 1, args.size());
+            pushValue(fp);
+            fp = base;
+            frameTop = base + size;
+            push(call, 2);
+            push(proc.getStmt(), 0);
+        }
+        else
+        {
+            int result = frames[fp];
+            frameTop = fp;
+            fp = values[sp - 1];
+            values[sp - 1] = result;
+        }
+    }
+}
@@ -0,0 +1,304 @@
+package jit;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ClassWriter writes the bytes of a JVM class file: a constant pool, static fields and
+ * static methods. It writes version 49 class files, which the verifier checks by
+ * type inference, so methods need no stack map frames. Only what the JvmCompiler needs
+ * is supported.
+ *
+ * @author Montek Kalsi
+ * @version 10/17/26
+ */
+public class ClassWriter
+{
+    private static final int ACC_PUBLIC = 0x0001;
+    private static final int ACC_STATIC = 0x0008;
+    private static final int ACC_FINAL = 0x0010;
+    private static final int ACC_SUPER = 0x0020;
+
+    private ByteArrayOutputStream pool = new ByteArrayOutputStream();
+    private DataOutputStream poolOut = new DataOutputStream(pool);
+    private Map<String,Integer> entries = new HashMap<String,Integer>();
+    private int poolCount = 1;
+
+    private String name;
+    // the name and descriptor of each field
+    private List<String[]> fields = new ArrayList<String[]>();
+    private List<byte[]> methods = new ArrayList<byte[]>();
+
+    /**
+     * Starts a public final class that extends Object.
+     * @param name the internal name of the class, such as jit/Script
+     */
+    public ClassWriter(String name)
+    {
+        this.name = name;
+    }
+
+    /**
+     * Outputs the internal name of the class.
+     * @return the class name
+     */
+    public String getName()
+    {
+        return name;
+    }
+
+    /**
+     * Adds a public static int field.
+     * @param field the name of the field
+     */
+    public void addField(String field)
+    {
+        addField(field, "I");
+    }
+
+    /**
+     * Adds a public static field of any type.
+     * @param field the name of the field
+     * @param descriptor the type of the field, such as Loutput/OutputSink;
+     */
+    public void addField(String field, String descriptor)
+    {
+        fields.add(new String[] {field, descriptor});
+    }
+
+    /**
+     * Adds a public static method.
+     * @param method the name of the method
+     * @param descriptor the method descriptor, such as (II)I
+     * @param code the instructions of the method
+     */
+    public void addMethod(String method, String descriptor, CodeBuilder code)
+    {
+        try
+        {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            byte[] insns = code.toByteArray();
+            if (insns.length >= 65536)
+                throw new IllegalArgumentException("method " + method + " is too large");
+            out.writeShort(ACC_PUBLIC | ACC_STATIC);
+            out.writeShort(utf8(method));
+            out.writeShort(utf8(descriptor));
+            out.writeShort(1);
+            out.writeShort(utf8("Code"));
+            out.writeInt(12 + insns.length);
+            out.writeShort(code.getMaxStack());
+            out.writeShort(code.getMaxLocals());
+            out.writeInt(insns.length);
+            out.write(insns);
+            out.writeShort(0);
+            out.writeShort(0);
+            methods.add(bytes.toByteArray());
+        }
+        catch (IOException e)
+        {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Finishes the class.
+     * @return the bytes of the class file
+     */
+    public byte[] toByteArray()
+    {
+        try
+        {
+            int thisClass = classRef(name);
+            int superClass = classRef("java/lang/Object");
+            int[] fieldNames = new int[fields.size()];
+            int[] fieldTypes = new int[fields.size()];
+            for (int i = 0; i < fieldNames.length; i++)
+            {
+                fieldNames[i] = utf8(fields.get(i)[0]);
+                fieldTypes[i] = utf8(fields.get(i)[1]);
+            }
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(49);
+            out.writeShort(poolCount);
+            poolOut.flush();
+            out.write(pool.toByteArray());
+            out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(0);
+            out.writeShort(fields.size());
+            for (int i = 0; i < fieldNames.length; i++)
+            {
+                out.writeShort(ACC_PUBLIC | ACC_STATIC);
+                out.writeShort(fieldNames[i]);
+                out.writeShort(fieldTypes[i]);
+                out.writeShort(0);
+            }
+            out.writeShort(methods.size());
+            for (byte[] m : methods)
+                out.write(m);
+            out.writeShort(0);
+            return bytes.toByteArray();
+        }
+        catch (IOException e)
+        {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Finds or adds a CONSTANT_Utf8 entry.
+     * @param s the string
+     * @return its constant pool index
+     */
+    public int utf8(String s)
+    {
+        Integer index = entries.get("U" + s);
+        if (index != null)
+            return index;
+        try
+        {
+            poolOut.writeByte(1);
+            poolOut.writeUTF(s);
+        }
+        catch (IOException e)
+        {
+            throw new RuntimeException(e);
+        }
+        entries.put("U" + s, poolCount);
+        return poolCount++;
+    }
+
+    /**
+     * Finds or adds a CONSTANT_Integer entry.
+     * @param value the int
+     * @return its constant pool index
+     */
+    public int integer(int value)
+    {
+        Integer index = entries.get("I" + value);
+        if (index != null)
+            return index;
+        try
+        {
+            poolOut.writeByte(3);
+            poolOut.writeInt(value);
+        }
+        catch (IOException e)
+        {
+            throw new RuntimeException(e);
+        }
+        entries.put("I" + value, poolCount);
+        return poolCount++;
+    }
+
+    /**
+     * Finds or adds a CONSTANT_Class entry.
+     * @param internalName the internal name of the class
+     * @return its constant pool index
+     */
+    public int classRef(String internalName)
+    {
+        Integer index = entries.get("C" + internalName);
+        if (index != null)
+            return index;
+        int utf = utf8(internalName);
+        return add("C" + internalName, 7, utf, -1);
+    }
+
+    /**
+     * Finds or adds a CONSTANT_Fieldref entry.
+     * @param owner the internal name of the class declaring the field
+     * @param field the name of the field
+     * @param descriptor the type of the field
+     * @return its constant pool index
+     */
+    public int fieldRef(String owner, String field, String descriptor)
+    {
+        return memberRef(9, owner, field, descriptor);
+    }
+
+    /**
+     * Finds or adds a CONSTANT_Methodref entry.
+     * @param owner the internal name of the class declaring the method
+     * @param method the name of the method
+     * @param descriptor the method descriptor
+     * @return its constant pool index
+     */
+    public int methodRef(String owner, String method, String descriptor)
+    {
+        return memberRef(10, owner, method, descriptor);
+    }
+
+    /**
+     * Finds or adds a CONSTANT_InterfaceMethodref entry.
+     * @param owner the internal name of the interface declaring the method
+     * @param method the name of the method
+     * @param descriptor the method descriptor
+     * @return its constant pool index
+     */
+    public int interfaceMethodRef(String owner, String method, String descriptor)
+    {
+        return memberRef(11, owner, method, descriptor);
+    }
+
+    /**
+     * Finds or adds a field or method reference.
+     * @param tag the constant pool tag
+     * @param owner the internal name of the declaring class
+     * @param member the name of the member
+     * @param descriptor the descriptor of the member
+     * @return its constant pool index
+     */
+    private int memberRef(int tag, String owner, String member, String descriptor)
+    {
+        String key = tag + owner + "." + member + ":" + descriptor;
+        Integer index = entries.get(key);
+        if (index != null)
+            return index;
+        int cls = classRef(owner);
+        String ntKey = "N" + member + ":" + descriptor;
+        Integer nameAndType = entries.get(ntKey);
+        if (nameAndType == null)
+        {
+            int n = utf8(member);
+            int d = utf8(descriptor);
+            nameAndType = add(ntKey, 12, n, d);
+        }
+        return add(key, tag, cls, nameAndType);
+    }
+
+    /**
+     * Appends a constant pool entry made of a tag and one or two indices.
+     * @param key the key the entry is remembered by
+     * @param tag the constant pool tag
+     * @param first the first index
+     * @param second the second index, or -1 if there is only one
+     * @return the index of the new entry
+     */
+    private int add(String key, int tag, int first, int second)
+    {
+        try
+        {
+            poolOut.writeByte(tag);
+            poolOut.writeShort(first);
+            if (second >= 0)
+                poolOut.writeShort(second);
+        }
+        catch (IOException e)
+        {
+            throw new RuntimeException(e);
+        }
+        entries.put(key, poolCount);
+        return poolCount++;
+    }
+}
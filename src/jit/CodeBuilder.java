@@ -0,0 +1,285 @@
+package jit;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * CodeBuilder collects the instructions of one JVM method, keeping track of the operand
+ * stack depth so that max_stack can be computed, and patching branch offsets once their
+ * labels are placed.
+ *
+ * @author Montek Kalsi
+ * @version 10/17/26
+ */
+public class CodeBuilder
+{
+    public static final int ICONST_0 = 0x03;
+    public static final int BIPUSH = 0x10;
+    public static final int SIPUSH = 0x11;
+    public static final int LDC_W = 0x13;
+    public static final int ILOAD = 0x15;
+    public static final int ISTORE = 0x36;
+    public static final int IADD = 0x60;
+    public static final int ISUB = 0x64;
+    public static final int IMUL = 0x68;
+    public static final int IDIV = 0x6c;
+    public static final int IREM = 0x70;
+    public static final int IF_ICMPEQ = 0x9f;
+    public static final int IF_ICMPNE = 0xa0;
+    public static final int IF_ICMPLT = 0xa1;
+    public static final int IF_ICMPGE = 0xa2;
+    public static final int IF_ICMPGT = 0xa3;
+    public static final int IF_ICMPLE = 0xa4;
+    public static final int GOTO = 0xa7;
+    public static final int IRETURN = 0xac;
+    public static final int RETURN = 0xb1;
+    public static final int GETSTATIC = 0xb2;
+    public static final int PUTSTATIC = 0xb3;
+    public static final int INVOKEVIRTUAL = 0xb6;
+    public static final int INVOKESTATIC = 0xb8;
+    public static final int INVOKEINTERFACE = 0xb9;
+    public static final int WIDE = 0xc4;
+
+    /**
+     * A position in the code that branches can target before it is known.
+     */
+    public static class Label
+    {
+        private int position = -1;
+        private List<int[]> fixups = new ArrayList<int[]>();
+    }
+
+    private byte[] code = new byte[256];
+    private int size;
+    private int stack;
+    private int maxStack;
+    private int maxLocals;
+
+    /**
+     * Constructs an empty method body.
+     * @param maxLocals the number of local variable slots the method uses
+     */
+    public CodeBuilder(int maxLocals)
+    {
+        this.maxLocals = maxLocals;
+    }
+
+    /**
+     * Outputs the deepest the operand stack gets.
+     * @return max_stack
+     */
+    public int getMaxStack()
+    {
+        return maxStack;
+    }
+
+    /**
+     * Outputs the number of local variable slots.
+     * @return max_locals
+     */
+    public int getMaxLocals()
+    {
+        return maxLocals;
+    }
+
+    /**
+     * Outputs the current operand stack depth.
+     * @return the depth
+     */
+    public int getStack()
+    {
+        return stack;
+    }
+
+    /**
+     * Sets the operand stack depth, for code reached only by a branch.
+     * @param depth the depth
+     */
+    public void setStack(int depth)
+    {
+        stack = depth;
+    }
+
+    /**
+     * Outputs the instructions.
+     * @return the bytes of the code
+     */
+    public byte[] toByteArray()
+    {
+        byte[] out = new byte[size];
+        System.arraycopy(code, 0, out, 0, size);
+        return out;
+    }
+
+    /**
+     * Emits an instruction without operands.
+     * @param opcode the opcode
+     * @param stackDelta the change in stack depth it causes
+     */
+    public void op(int opcode, int stackDelta)
+    {
+        u1(opcode);
+        adjust(stackDelta);
+    }
+
+    /**
+     * Emits the shortest instruction that pushes an int constant.
+     * @param value the constant
+     * @param cw the class writer holding the constant pool
+     */
+    public void pushInt(int value, ClassWriter cw)
+    {
+        if (value >= -1 && value <= 5)
+            u1(ICONST_0 + value);
+        else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE)
+        {
+            u1(BIPUSH);
+            u1(value);
+        }
+        else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE)
+        {
+            u1(SIPUSH);
+            u2(value);
+        }
+        else
+        {
+            u1(LDC_W);
+            u2(cw.integer(value));
+        }
+        adjust(1);
+    }
+
+    /**
+     * Emits an iload or istore of a local variable.
+     * @param opcode ILOAD or ISTORE
+     * @param local the local variable index
+     */
+    public void local(int opcode, int local)
+    {
+        if (local < 256)
+        {
+            u1(opcode);
+            u1(local);
+        }
+        else
+        {
+            u1(WIDE);
+            u1(opcode);
+            u2(local);
+        }
+        adjust(opcode == ILOAD ? 1 : -1);
+    }
+
+    /**
+     * Emits an instruction with a two-byte constant pool operand.
+     * @param opcode the opcode
+     * @param index the constant pool index
+     * @param stackDelta the change in stack depth it causes
+     */
+    public void poolOp(int opcode, int index, int stackDelta)
+    {
+        u1(opcode);
+        u2(index);
+        adjust(stackDelta);
+    }
+
+    /**
+     * Emits an invokeinterface instruction.
+     * @param index the constant pool index of the interface method
+     * @param argSlots the number of stack slots the arguments take, not counting the
+     *        receiver
+     * @param stackDelta the change in stack depth it causes
+     */
+    public void invokeInterface(int index, int argSlots, int stackDelta)
+    {
+        u1(INVOKEINTERFACE);
+        u2(index);
+        u1(argSlots + 1);
+        u1(0);
+        adjust(stackDelta);
+    }
+
+    /**
+     * Emits a branch to a label.
+     * @param opcode the branch opcode
+     * @param target the label branched to
+     */
+    public void branch(int opcode, Label target)
+    {
+        int start = size;
+        u1(opcode);
+        if (target.position >= 0)
+            u2(offset(target.position - start));
+        else
+        {
+            target.fixups.add(new int[] {start, size});
+            u2(0);
+        }
+        adjust(opcode == GOTO ? 0 : -2);
+    }
+
+    /**
+     * Places a label at the current position and patches the branches to it.
+     * @param label the label
+     */
+    public void mark(Label label)
+    {
+        label.position = size;
+        for (int[] fix : label.fixups)
+        {
+            int offset = offset(size - fix[0]);
+            code[fix[1]] = (byte) (offset >> 8);
+            code[fix[1] + 1] = (byte) offset;
+        }
+        label.fixups.clear();
+    }
+
+    /**
+     * Checks that a branch offset fits in the two bytes of a branch instruction.
+     * @param offset the offset
+     * @return the offset
+     * @throws IllegalArgumentException if the method is too large to branch across
+     */
+    private static int offset(int offset)
+    {
+        if (offset < Short.MIN_VALUE || offset > Short.MAX_VALUE)
+            throw new IllegalArgumentException("method is too large to branch across");
+        return offset;
+    }
+
+    /**
+     * Changes the stack depth and updates max_stack.
+     * @param delta the change
+     */
+    private void adjust(int delta)
+    {
+        stack += delta;
+        if (stack > maxStack)
+            maxStack = stack;
+    }
+
+    /**
+     * Appends one byte.
+     * @param b the byte
+     */
+    private void u1(int b)
+    {
+        if (size == code.length)
+        {
+            byte[] grown = new byte[size * 2];
+            System.arraycopy(code, 0, grown, 0, size);
+            code = grown;
+        }
+        code[size++] = (byte) b;
+    }
+
+    /**
+     * Appends two bytes, high byte first.
+     * @param v the value
+     */
+    private void u2(int v)
+    {
+        u1(v >> 8);
+        u1(v);
+    }
+}
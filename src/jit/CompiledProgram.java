@@ -0,0 +1,109 @@
+package jit;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.List;
+
+import output.BufferedSink;
+import output.OutputSink;
+
+/**
+ * A CompiledProgram is a Program that the JvmCompiler has loaded as a hidden class. Its
+ * globals and its OutputSink are static fields of that class, so one CompiledProgram
+ * must not be run by several threads at once.
+ *
+ * @author Montek Kalsi
+ * @version 10/17/26
+ */
+public class CompiledProgram
+{
+    private MethodHandles.Lookup lookup;
+    private MethodHandle run;
+    private MethodHandle setOutput;
+    private List<String> globals;
+    private OutputSink output;
+
+    /**
+     * Constructs a handle on a loaded program class.
+     * @param lookup a full-privilege lookup on the hidden class
+     * @param globals the names of the globals
+     * @throws IllegalAccessException if the run method cannot be accessed
+     */
+    CompiledProgram(MethodHandles.Lookup lookup, List<String> globals)
+            throws IllegalAccessException
+    {
+        this.lookup = lookup;
+        this.globals = globals;
+        try
+        {
+            run = lookup.findStatic(lookup.lookupClass(), "run",
+                    MethodType.methodType(void.class));
+            setOutput = lookup.findStaticSetter(lookup.lookupClass(), JvmCompiler.OUTPUT,
+                    OutputSink.class);
+        }
+        catch (NoSuchMethodException | NoSuchFieldException e)
+        {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Sets where WRITELN writes; by default it is a buffered sink on System.out.
+     * @param output the sink
+     */
+    public void setOutput(OutputSink output)
+    {
+        this.output = output;
+    }
+
+    /**
+     * Runs the main statement with every global first set to 0, then flushes the output.
+     */
+    public void run()
+    {
+        if (output == null)
+            output = new BufferedSink(System.out);
+        try
+        {
+            setOutput.invokeExact(output);
+            run.invokeExact();
+        }
+        catch (RuntimeException | Error e)
+        {
+            throw e;
+        }
+        catch (Throwable t)
+        {
+            throw new IllegalStateException(t);
+        }
+        finally
+        {
+            output.flush();
+        }
+    }
+
+    /**
+     * Outputs the value of a global after running.
+     * @param name the name of the global
+     * @return its value
+     */
+    public int getGlobal(String name)
+    {
+        if (!globals.contains(name))
+            throw new IllegalArgumentException("no global named " + name);
+        try
+        {
+            return (int) lookup.findStaticGetter(lookup.lookupClass(), name, int.class)
+                    .invoke();
+        }
+        catch (RuntimeException | Error e)
+        {
+            throw e;
+        }
+        catch (Throwable t)
+        {
+            throw new IllegalStateException(t);
+        }
+    }
+}
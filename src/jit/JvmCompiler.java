@@ -0,0 +1,318 @@
+package jit;
+
+import java.lang.invoke.MethodHandles;
+import java.util.List;
+
+import ast.*;
+import ast.Number;
+
+/**
+ * JvmCompiler translates a resolved Program into a hidden JVM class so that HotSpot can
+ * JIT compile it like any other Java code. Globals become static int fields, each
+ * procedure becomes a static method taking its arguments as ints and returning its
+ * procedure variable, and the main statement becomes the static method run. Inside a
+ * procedure every frame slot is a JVM local: the arguments keep their parameter slots,
+ * the procedure variable comes right after them, and the local variables follow.
+ * WRITELN writes to the OutputSink in the static field OUTPUT, which CompiledProgram sets
+ * before each run.
+ *
+ * A long main Block is split across several methods, since the JVM limits a method to
+ * 64K of code; the main statement has no locals, so the pieces share nothing but the
+ * static fields.
+ *
+ * @author Montek Kalsi
+ * @version 10/17/26
+ */
+public class JvmCompiler
+{
+    // the internal name of generated classes; hidden classes must be in this package
+    private static final String NAME = "jit/Script";
+
+    // the number of main statements compiled into each piece of run
+    private static final int PIECE = 256;
+
+    // the field that holds the OutputSink; $ keeps it apart from the names of globals
+    static final String OUTPUT = "$output";
+    private static final String SINK = "output/OutputSink";
+
+    private ClassWriter cw;
+    private Program program;
+    private List<ProcedureDeclaration> procedures;
+    private CodeBuilder code;
+    private boolean inProcedure;
+    private int argCount;
+
+    /**
+     * Constructs a compiler for a resolved Program.
+     * @param program the program to compile
+     */
+    private JvmCompiler(Program program)
+    {
+        this.program = program;
+        procedures = program.getProcedures();
+        cw = new ClassWriter(NAME);
+    }
+
+    /**
+     * Compiles a Program into a hidden class, resolving it first if needed.
+     * @param program the program to compile
+     * @return the loaded program, ready to run
+     * @throws IllegalArgumentException if a method of the program is too large for the JVM
+     */
+    public static CompiledProgram compile(Program program)
+    {
+        program.resolve();
+        byte[] bytes = new JvmCompiler(program).generate();
+        try
+        {
+            MethodHandles.Lookup lookup = MethodHandles.lookup().defineHiddenClass(bytes, true);
+            return new CompiledProgram(lookup, program.getGlobals());
+        }
+        catch (IllegalAccessException e)
+        {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Generates the bytes of the class.
+     * @return the class file
+     */
+    private byte[] generate()
+    {
+        List<String> globals = program.getGlobals();
+        for (String g : globals)
+            cw.addField(g);
+        cw.addField(OUTPUT, "L" + SINK + ";");
+        inProcedure = true;
+        for (int p = 0; p < procedures.size(); p++)
+            procedure(p);
+        inProcedure = false;
+
+        Statement main = program.getStatement();
+        List<Statement> stmts = main instanceof Block ? ((Block) main).getStatements() : null;
+        int pieces = 0;
+        if (stmts != null && stmts.size() > PIECE)
+        {
+            for (int from = 0; from < stmts.size(); from += PIECE)
+            {
+                code = new CodeBuilder(0);
+                for (int i = from; i < Math.min(stmts.size(), from + PIECE); i++)
+                    statement(stmts.get(i));
+                code.op(CodeBuilder.RETURN, 0);
+                cw.addMethod("run" + pieces++, "()V", code);
+            }
+        }
+        code = new CodeBuilder(0);
+        for (String g : globals)
+        {
+            code.pushInt(0, cw);
+            code.poolOp(CodeBuilder.PUTSTATIC, cw.fieldRef(NAME, g, "I"), -1);
+        }
+        if (pieces > 0)
+            for (int i = 0; i < pieces; i++)
+                code.poolOp(CodeBuilder.INVOKESTATIC, cw.methodRef(NAME, "run" + i, "()V"), 0);
+        else
+            statement(main);
+        code.op(CodeBuilder.RETURN, 0);
+        cw.addMethod("run", "()V", code);
+        return cw.toByteArray();
+    }
+
+    /**
+     * Builds the descriptor of a procedure's method.
+     * @param args the number of arguments
+     * @return a descriptor such as (II)I
+     */
+    private static String descriptor(int args)
+    {
+        StringBuilder d = new StringBuilder("(");
+        for (int i = 0; i < args; i++)
+            d.append('I');
+        return d.append(")I").toString();
+    }
+
+    /**
+     * Compiles a procedure into a static method.
+     * @param p the index of the procedure
+     */
+    private void procedure(int p)
+    {
+        ProcedureDeclaration proc = procedures.get(p);
+        argCount = proc.getArgs().size();
+        code = new CodeBuilder(proc.getFrameSize());
+        for (int local = argCount; local < proc.getFrameSize(); local++)
+        {
+            code.pushInt(0, cw);
+            code.local(CodeBuilder.ISTORE, local);
+        }
+        statement(proc.getStmt());
+        code.local(CodeBuilder.ILOAD, argCount);
+        code.op(CodeBuilder.IRETURN, -1);
+        cw.addMethod("p" + p, descriptor(argCount), code);
+    }
+
+    /**
+     * Maps a Resolver frame slot to a JVM local variable index.
+     * @param slot the frame slot
+     * @return the local variable index
+     */
+    private int local(int slot)
+    {
+        if (slot == 0)
+            return argCount;
+        if (slot <= argCount)
+            return slot - 1;
+        return slot;
+    }
+
+    /**
+     * Compiles a statement.
+     * @param stmt the statement
+     */
+    private void statement(Statement stmt)
+    {
+        if (stmt instanceof Writeln)
+        {
+            code.poolOp(CodeBuilder.GETSTATIC, cw.fieldRef(NAME, OUTPUT, "L" + SINK + ";"), 1);
+            expression(((Writeln) stmt).getExpression());
+            code.invokeInterface(cw.interfaceMethodRef(SINK, "writeInt", "(I)V"), 1, -2);
+        }
+        else if (stmt instanceof Assignment)
+        {
+            Assignment assign = (Assignment) stmt;
+            expression(assign.getExpression());
+            if (inProcedure && assign.getDepth() == 0)
+                code.local(CodeBuilder.ISTORE, local(assign.getSlot()));
+            else
+                code.poolOp(CodeBuilder.PUTSTATIC, cw.fieldRef(NAME,
+                        program.getGlobals().get(assign.getSlot()), "I"), -1);
+        }
+        else if (stmt instanceof Block)
+        {
+            for (Statement s : ((Block) stmt).getStatements())
+                statement(s);
+        }
+        else if (stmt instanceof If)
+        {
+            If ifStmt = (If) stmt;
+            CodeBuilder.Label skip = new CodeBuilder.Label();
+            branchIfFalse(ifStmt.getCondition(), skip);
+            statement(ifStmt.getStatement());
+            if (ifStmt.getElse() != null)
+            {
+                CodeBuilder.Label done = new CodeBuilder.Label();
+                code.branch(CodeBuilder.GOTO, done);
+                code.mark(skip);
+                statement(ifStmt.getElse());
+                code.mark(done);
+            }
+            else
+                code.mark(skip);
+        }
+        else if (stmt instanceof While)
+        {
+            While loop = (While) stmt;
+            CodeBuilder.Label top = new CodeBuilder.Label();
+            CodeBuilder.Label exit = new CodeBuilder.Label();
+            code.mark(top);
+            branchIfFalse(loop.getCondition(), exit);
+            statement(loop.getStatement());
+            code.branch(CodeBuilder.GOTO, top);
+            code.mark(exit);
+        }
+        else
+            throw new IllegalArgumentException("cannot compile "
+                    + stmt.getClass().getSimpleName());
+    }
+
+    /**
+     * Compiles a condition into a branch taken when it is false.
+     * @param cond the condition
+     * @param target the label branched to
+     */
+    private void branchIfFalse(Condition cond, CodeBuilder.Label target)
+    {
+        expression(cond.getLeft());
+        expression(cond.getRight());
+        code.branch(negatedBranch(cond.getOperator()), target);
+    }
+
+    /**
+     * Finds the branch opcode taken when a relational operator is false.
+     * @param op the relational operator
+     * @return the if_icmp opcode
+     */
+    private static int negatedBranch(String op)
+    {
+        switch (op)
+        {
+            case "=": return CodeBuilder.IF_ICMPNE;
+            case "<>": return CodeBuilder.IF_ICMPEQ;
+            case "<": return CodeBuilder.IF_ICMPGE;
+            case ">": return CodeBuilder.IF_ICMPLE;
+            case "<=": return CodeBuilder.IF_ICMPGT;
+            default: return CodeBuilder.IF_ICMPLT;
+        }
+    }
+
+    /**
+     * Compiles an expression, leaving its value on the operand stack.
+     * @param exp the expression
+     */
+    private void expression(Expression exp)
+    {
+        if (exp instanceof Number)
+            code.pushInt(((Number) exp).getValue(), cw);
+        else if (exp instanceof Variable)
+        {
+            Variable var = (Variable) exp;
+            if (inProcedure && var.getDepth() == 0)
+                code.local(CodeBuilder.ILOAD, local(var.getSlot()));
+            else
+                code.poolOp(CodeBuilder.GETSTATIC, cw.fieldRef(NAME,
+                        program.getGlobals().get(var.getSlot()), "I"), 1);
+        }
+        else if (exp instanceof BinOp)
+        {
+            BinOp bin = (BinOp) exp;
+            expression(bin.getLeft());
+            expression(bin.getRight());
+            switch (bin.getOperator())
+            {
+                case "+": code.op(CodeBuilder.IADD, -1); break;
+                case "-": code.op(CodeBuilder.ISUB, -1); break;
+                case "*": code.op(CodeBuilder.IMUL, -1); break;
+                case "/": code.op(CodeBuilder.IDIV, -1); break;
+                case "%": code.op(CodeBuilder.IREM, -1); break;
+                default:
+                    throw new IllegalArgumentException("unknown operator " + bin.getOperator());
+            }
+        }
+        else if (exp instanceof Condition)
+        {
+            CodeBuilder.Label isFalse = new CodeBuilder.Label();
+            CodeBuilder.Label done = new CodeBuilder.Label();
+            branchIfFalse((Condition) exp, isFalse);
+            code.pushInt(1, cw);
+            code.branch(CodeBuilder.GOTO, done);
+            code.setStack(code.getStack() - 1);
+            code.mark(isFalse);
+            code.pushInt(0, cw);
+            code.mark(done);
+        }
+        else if (exp instanceof ProcedureCall)
+        {
+            ProcedureCall call = (ProcedureCall) exp;
+            for (Expression arg : call.getArgs())
+                expression(arg);
+            int p = procedures.indexOf(call.getDeclaration());
+            int args = call.getArgs().size();
+            code.poolOp(CodeBuilder.INVOKESTATIC,
+                    cw.methodRef(NAME, "p" + p, descriptor(args)), 1 - args);
+        }
+        else
+            throw new IllegalArgumentException("cannot compile "
+                    + exp.getClass().getSimpleName());
+    }
+}
@@ -0,0 +1,232 @@
+package optimizer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+import ast.*;
+import ast.Number;
+
+/**
+ * ConstantFolder replaces expressions whose value is known before the program runs with
+ * that value. An operator whose operands are both numbers is computed, except a division
+ * or mod by zero, which is left to fail at run time as it would have. A condition of two
+ * numbers becomes 0 or 1 where it is used as a value; in an IF or WHILE it stays a
+ * condition.
+ *
+ * Constants are also propagated: after x := 5, later reads of x in the same straight run
+ * of statements become 5. After an IF, only what holds on every path through it is
+ * still known, and a WHILE forgets the variables its body assigns, both before the loop,
+ * since the body may run again, and after it; a WHILE whose condition is already false
+ * when it is reached is dropped. Everything is forgotten after any statement
+ * that calls a procedure that is not pure, since the procedure may assign any global;
+ * inside such a statement nothing is substituted, since a read may come after the call.
+ *
+ * @author Montek Kalsi
+ * @version 10/17/26
+ */
+public class ConstantFolder extends Rewriter
+{
+    private Map<Long, Integer> known = new HashMap<Long, Integer>();
+    private boolean suspended;
+
+    /**
+     * Folds a Program, resolving it first if needed. The original is left unchanged.
+     * @param program the program
+     * @return the folded program
+     */
+    public static Program fold(Program program)
+    {
+        return new ConstantFolder().rewrite(program);
+    }
+
+    /**
+     * Computes an arithmetic operator over constants.
+     * @param op the operator
+     * @param a the left operand
+     * @param b the right operand
+     * @return the result, or null if it would divide by zero
+     */
+    static Integer arithmetic(String op, int a, int b)
+    {
+        switch (op)
+        {
+            case "+": return a + b;
+            case "-": return a - b;
+            case "*": return a * b;
+            case "/": return b == 0 ? null : a / b;
+            default: return b == 0 ? null : a % b;
+        }
+    }
+
+    /**
+     * Computes a relational operator over constants.
+     * @param op the operator
+     * @param a the left operand
+     * @param b the right operand
+     * @return true if the relation holds
+     */
+    static boolean relation(String op, int a, int b)
+    {
+        switch (op)
+        {
+            case "=": return a == b;
+            case "<>": return a != b;
+            case "<": return a < b;
+            case ">": return a > b;
+            case "<=": return a <= b;
+            default: return a >= b;
+        }
+    }
+
+    /**
+     * Makes the key of a resolved variable.
+     * @param depth its depth
+     * @param slot its slot
+     * @return the key
+     */
+    private static long key(int depth, int slot)
+    {
+        return ((long) depth << 32) | slot;
+    }
+
+    /**
+     * Forgets every variable assigned anywhere inside a node.
+     * @param node a statement
+     */
+    private void forgetAssigned(Object node)
+    {
+        if (node instanceof Assignment)
+            known.remove(key(((Assignment) node).getDepth(), ((Assignment) node).getSlot()));
+        for (Object child : Trees.children(node))
+            forgetAssigned(child);
+    }
+
+    /**
+     * Folds a procedure, starting with nothing known.
+     * @param proc the procedure
+     * @return the folded procedure
+     */
+    protected ProcedureDeclaration procedure(ProcedureDeclaration proc)
+    {
+        known.clear();
+        return super.procedure(proc);
+    }
+
+    /**
+     * Folds the main statement, starting with nothing known.
+     * @param stmt the main statement
+     * @return the folded statement
+     */
+    protected Statement main(Statement stmt)
+    {
+        known.clear();
+        return super.main(stmt);
+    }
+
+    /**
+     * Folds a statement and updates what is known after it.
+     * @param stmt the statement
+     * @return the folded statement
+     */
+    protected Statement statement(Statement stmt)
+    {
+        if (stmt instanceof If)
+        {
+            If ifStmt = (If) stmt;
+            boolean calls = Trees.hasImpureCall(ifStmt.getCondition());
+            suspended = calls;
+            Condition cond = condition(ifStmt.getCondition());
+            suspended = false;
+            if (calls)
+                known.clear();
+            Map<Long, Integer> before = new HashMap<Long, Integer>(known);
+            Statement then = statement(ifStmt.getStatement());
+            Map<Long, Integer> afterThen = known;
+            known = before;
+            Statement elses = null;
+            if (ifStmt.getElse() != null)
+                elses = statement(ifStmt.getElse());
+            known.entrySet().removeIf(
+                    fact -> !fact.getValue().equals(afterThen.get(fact.getKey())));
+            return elses == null ? new If(cond, then) : new If(cond, then, elses);
+        }
+        if (stmt instanceof While)
+        {
+            While loop = (While) stmt;
+            if (!Trees.hasImpureCall(loop.getCondition()))
+            {
+                Condition entry = condition(loop.getCondition());
+                if (entry.getLeft() instanceof Number && entry.getRight() instanceof Number
+                        && !relation(entry.getOperator(), ((Number) entry.getLeft()).getValue(),
+                        ((Number) entry.getRight()).getValue()))
+                    return new Block(new ArrayList<Statement>());
+            }
+            if (Trees.hasImpureCall(loop))
+                known.clear();
+            else
+                forgetAssigned(loop);
+            Map<Long, Integer> outside = new HashMap<Long, Integer>(known);
+            Statement result = super.statement(loop);
+            known = outside;
+            return result;
+        }
+        if (stmt instanceof Block)
+            return super.statement(stmt);
+        boolean calls = Trees.hasImpureCall(stmt);
+        suspended = calls;
+        Statement result = super.statement(stmt);
+        suspended = false;
+        if (calls)
+            known.clear();
+        if (result instanceof Assignment)
+        {
+            Assignment assign = (Assignment) result;
+            long key = key(assign.getDepth(), assign.getSlot());
+            if (assign.getExpression() instanceof Number && !calls)
+                known.put(key, ((Number) assign.getExpression()).getValue());
+            else
+                known.remove(key);
+        }
+        return result;
+    }
+
+    /**
+     * Folds an expression: substitutes known variables and computes operators over
+     * constants.
+     * @param exp the expression
+     * @return the folded expression
+     */
+    protected Expression expression(Expression exp)
+    {
+        if (exp instanceof Variable && !suspended)
+        {
+            Variable var = (Variable) exp;
+            Integer value = known.get(key(var.getDepth(), var.getSlot()));
+            if (value != null)
+                return new Number(value);
+        }
+        Expression result = super.expression(exp);
+        if (result instanceof Condition)
+        {
+            Condition cond = (Condition) result;
+            if (cond.getLeft() instanceof Number && cond.getRight() instanceof Number)
+                return new Number(relation(cond.getOperator(),
+                        ((Number) cond.getLeft()).getValue(),
+                        ((Number) cond.getRight()).getValue()) ? 1 : 0);
+        }
+        else if (result instanceof BinOp)
+        {
+            BinOp bin = (BinOp) result;
+            if (bin.getLeft() instanceof Number && bin.getRight() instanceof Number)
+            {
+                Integer value = arithmetic(bin.getOperator(),
+                        ((Number) bin.getLeft()).getValue(),
+                        ((Number) bin.getRight()).getValue());
+                if (value != null)
+                    return new Number(value);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,248 @@
+package optimizer;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import ast.*;
+import ast.Number;
+
+/**
+ * DeadCodeEliminator removes code that cannot run or whose effect is never seen. An IF
+ * whose condition compares two numbers becomes its branch or nothing, and a WHILE whose
+ * condition is false from the start disappears; running after ConstantFolder, this
+ * prunes branches on constant flags. Procedures that no remaining call reaches from the
+ * main statement are dropped, so they are no longer compiled.
+ *
+ * Assignments to a global are dropped when nothing reads the global, or when the next
+ * statement that could see it assigns it again. An assignment whose expression calls a
+ * procedure or might divide by zero is kept, so that the call still happens and the
+ * error is still raised. The final values of globals that are never read are
+ * therefore not kept, so a caller that inspects globals after a run should not use this
+ * pass.
+ *
+ * @author Montek Kalsi
+ * @version 10/17/26
+ */
+public class DeadCodeEliminator extends Rewriter
+{
+    private Set<Integer> read;
+    private boolean inProcedure;
+    private int removed;
+
+    /**
+     * Removes dead code from a Program, resolving it first if needed. The original is
+     * left unchanged.
+     * @param program the program
+     * @return the program without its dead code
+     */
+    public static Program eliminate(Program program)
+    {
+        DeadCodeEliminator pass = new DeadCodeEliminator();
+        Program result = reachable(pass.rewrite(program));
+        do
+        {
+            pass.read = globalsRead(result);
+            pass.removed = 0;
+            result = reachable(pass.rewrite(result));
+        }
+        while (pass.removed > 0);
+        return result;
+    }
+
+    /**
+     * Drops the procedures of a rewritten Program that cannot be reached from its main
+     * statement.
+     * @param program the program, which is changed
+     * @return the program
+     */
+    private static Program reachable(Program program)
+    {
+        Set<ProcedureDeclaration> seen = new HashSet<ProcedureDeclaration>();
+        List<ProcedureDeclaration> work = new ArrayList<ProcedureDeclaration>();
+        Trees.calls(program.getStatement(), work);
+        while (!work.isEmpty())
+        {
+            ProcedureDeclaration proc = work.remove(work.size() - 1);
+            if (seen.add(proc))
+                Trees.calls(proc.getStmt(), work);
+        }
+        ArrayList<ProcedureDeclaration> kept = new ArrayList<ProcedureDeclaration>();
+        for (ProcedureDeclaration proc : program.getProcedures())
+            if (seen.contains(proc))
+                kept.add(proc);
+        program.setProcedure(kept);
+        return program;
+    }
+
+    /**
+     * Finds the slots of the globals read anywhere in a Program.
+     * @param program the program
+     * @return the slots
+     */
+    private static Set<Integer> globalsRead(Program program)
+    {
+        Set<Integer> slots = new HashSet<Integer>();
+        addReads(program.getStatement(), 0, slots);
+        for (ProcedureDeclaration proc : program.getProcedures())
+            addReads(proc.getStmt(), 1, slots);
+        return slots;
+    }
+
+    /**
+     * Adds the slots of the globals read inside a node.
+     * @param node a statement or expression
+     * @param depth the depth of globals where the node is
+     * @param slots the set added to
+     */
+    private static void addReads(Object node, int depth, Set<Integer> slots)
+    {
+        if (node instanceof Variable && ((Variable) node).getDepth() == depth)
+            slots.add(((Variable) node).getSlot());
+        for (Object child : Trees.children(node))
+            addReads(child, depth, slots);
+    }
+
+    /**
+     * Outputs the depth of globals in the code being rewritten.
+     * @return 1 inside a procedure, 0 in the main statement
+     */
+    private int globalDepth()
+    {
+        return inProcedure ? 1 : 0;
+    }
+
+    /**
+     * Removes the dead code of a procedure.
+     * @param proc the procedure
+     * @return the new procedure
+     */
+    protected ProcedureDeclaration procedure(ProcedureDeclaration proc)
+    {
+        inProcedure = true;
+        ProcedureDeclaration result = super.procedure(proc);
+        inProcedure = false;
+        return result;
+    }
+
+    /**
+     * Removes the dead code of a statement.
+     * @param stmt the statement
+     * @return the new statement, which is an empty block if nothing is left
+     */
+    protected Statement statement(Statement stmt)
+    {
+        if (stmt instanceof If)
+        {
+            If ifStmt = (If) stmt;
+            Boolean value = constant(ifStmt.getCondition());
+            if (value != null)
+            {
+                if (value)
+                    return statement(ifStmt.getStatement());
+                if (ifStmt.getElse() != null)
+                    return statement(ifStmt.getElse());
+                return empty();
+            }
+        }
+        else if (stmt instanceof While)
+        {
+            if (Boolean.FALSE.equals(constant(((While) stmt).getCondition())))
+                return empty();
+        }
+        else if (stmt instanceof Block)
+            return block(((Block) stmt).getStatements());
+        else if (stmt instanceof Assignment && read != null)
+        {
+            Assignment assign = (Assignment) stmt;
+            if (assign.getDepth() == globalDepth() && !read.contains(assign.getSlot())
+                    && !Trees.mayFail(assign.getExpression()))
+            {
+                removed++;
+                return empty();
+            }
+        }
+        return super.statement(stmt);
+    }
+
+    /**
+     * Rewrites the statements of a block, leaving out the ones that are now empty and the
+     * assignments that are overwritten before they can be seen.
+     * @param stmts the statements
+     * @return the new block
+     */
+    private Statement block(List<Statement> stmts)
+    {
+        List<Statement> kept = new ArrayList<Statement>();
+        for (int i = 0; i < stmts.size(); i++)
+        {
+            if (read != null && overwritten(stmts, i))
+            {
+                removed++;
+                continue;
+            }
+            Statement s = statement(stmts.get(i));
+            if (!Trees.isEmpty(s))
+                kept.add(s);
+        }
+        return new Block(kept);
+    }
+
+    /**
+     * Checks whether statement i of a block assigns a global that a later statement of
+     * the block assigns again before anything could read it. Any call, IF or WHILE in
+     * between could read it, and an error in between would leave it seen, so the search
+     * stops at those.
+     * @param stmts the statements of the block
+     * @param i the index of the statement
+     * @return true if the assignment is overwritten unseen
+     */
+    private boolean overwritten(List<Statement> stmts, int i)
+    {
+        if (!(stmts.get(i) instanceof Assignment))
+            return false;
+        Assignment assign = (Assignment) stmts.get(i);
+        int depth = globalDepth();
+        int slot = assign.getSlot();
+        if (assign.getDepth() != depth || Trees.mayFail(assign.getExpression()))
+            return false;
+        for (int k = i + 1; k < stmts.size(); k++)
+        {
+            Statement next = stmts.get(k);
+            if (!(next instanceof Assignment || next instanceof Writeln)
+                    || Trees.reads(next, depth, slot))
+                return false;
+            Expression exp = next instanceof Assignment ? ((Assignment) next).getExpression()
+                    : ((Writeln) next).getExpression();
+            if (Trees.mayFail(exp))
+                return false;
+            if (next instanceof Assignment && ((Assignment) next).getDepth() == depth
+                    && ((Assignment) next).getSlot() == slot)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Decides a condition whose operands are both numbers.
+     * @param cond the condition
+     * @return its value, or null if it is not constant
+     */
+    private static Boolean constant(Condition cond)
+    {
+        if (cond.getLeft() instanceof Number && cond.getRight() instanceof Number)
+            return ConstantFolder.relation(cond.getOperator(),
+                    ((Number) cond.getLeft()).getValue(), ((Number) cond.getRight()).getValue());
+        return null;
+    }
+
+    /**
+     * Makes a statement that does nothing.
+     * @return an empty block
+     */
+    private static Statement empty()
+    {
+        return new Block(new ArrayList<Statement>());
+    }
+}
@@ -0,0 +1,283 @@
+package optimizer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import ast.*;
+
+/**
+ * Inliner replaces calls to small procedures with the bodies of the procedures, saving
+ * the cost of the call: the frame the interpreter pushes, or the pushes, jal and pops of
+ * the MIPS code. A procedure is inlined when its body has at most MAX_SIZE nodes and it
+ * cannot call itself, directly or through other procedures, so inlining always stops.
+ *
+ * A call is inlined where it is the whole expression of an assignment or a WRITELN, so
+ * the statements of the body can run in its place. Each slot of the callee's frame
+ * becomes a temporary: the arguments are assigned to theirs in order, the return value
+ * and locals are set to zero, the body runs with its variables renamed to the
+ * temporaries, and the return value's temporary is then assigned or printed. Calls
+ * inside the inlined body and inside the arguments are inlined in the same way.
+ *
+ * Globals keep their names in the inlined body, and the MIPS emitter tells a local from
+ * a global by its name. So a call is not inlined into a procedure whose name, arguments
+ * or locals share a name with a global that the callee uses.
+ *
+ * @author Montek Kalsi
+ * @version 10/17/26
+ */
+public class Inliner extends Rewriter
+{
+    /**
+     * The largest body, counted in statements and expressions, that is inlined.
+     */
+    public static final int MAX_SIZE = 40;
+
+    private Temporaries temps;
+    private Map<ProcedureDeclaration, Set<String>> inlinable =
+            new HashMap<ProcedureDeclaration, Set<String>>();
+    private Set<String> locals = new HashSet<String>();
+    private Variable[] frame;
+
+    /**
+     * Inlines the small procedures of a Program, resolving it first if needed. The
+     * original is left unchanged.
+     * @param program the program
+     * @return the new program
+     */
+    public static Program inline(Program program)
+    {
+        return new Inliner().rewrite(program);
+    }
+
+    /**
+     * Rewrites a Program, then adds the temporaries of the main statement to its globals.
+     * @param program the program
+     * @return the new program
+     */
+    public Program rewrite(Program program)
+    {
+        program.resolve();
+        for (ProcedureDeclaration proc : program.getProcedures())
+            if (size(proc.getStmt()) <= MAX_SIZE && !recursive(proc))
+            {
+                Set<String> globals = new HashSet<String>();
+                globals(proc.getStmt(), globals);
+                inlinable.put(proc, globals);
+            }
+        temps = new Temporaries(program);
+        return temps.finish(super.rewrite(program));
+    }
+
+    /**
+     * Inlines the calls in a procedure, adding its temporaries to its locals.
+     * @param proc the procedure
+     * @return the new procedure
+     */
+    protected ProcedureDeclaration procedure(ProcedureDeclaration proc)
+    {
+        locals.add(proc.getName());
+        locals.addAll(proc.getArgs());
+        locals.addAll(proc.getVars());
+        temps.enter(proc);
+        ProcedureDeclaration copy = temps.leave(proc, statement(proc.getStmt()));
+        locals.clear();
+        return copy;
+    }
+
+    /**
+     * Rewrites a statement, inlining the call that an assignment or WRITELN evaluates.
+     * Inside an inlined body, assignments are renamed to the temporaries.
+     * @param stmt the statement
+     * @return the new statement
+     */
+    protected Statement statement(Statement stmt)
+    {
+        if (stmt instanceof Assignment)
+        {
+            Assignment assign = (Assignment) stmt;
+            return assign(target(assign), assign.getExpression());
+        }
+        if (stmt instanceof Writeln && isInlinable(((Writeln) stmt).getExpression()))
+        {
+            List<Statement> stmts = new ArrayList<Statement>();
+            Variable result = inline((ProcedureCall) ((Writeln) stmt).getExpression(), stmts);
+            stmts.add(new Writeln(result));
+            return new Block(stmts);
+        }
+        return super.statement(stmt);
+    }
+
+    /**
+     * Rewrites an expression; inside an inlined body, variables are renamed to the
+     * temporaries.
+     * @param exp the expression
+     * @return the new expression
+     */
+    protected Expression expression(Expression exp)
+    {
+        if (frame == null || !(exp instanceof Variable))
+            return super.expression(exp);
+        Variable var = (Variable) exp;
+        return rename(var.getName(), var.getDepth(), var.getSlot());
+    }
+
+    /**
+     * Builds an assignment to a variable, inlining the expression if it is a call.
+     * @param target the variable assigned, resolved where the assignment will run
+     * @param exp the original expression
+     * @return the new statement
+     */
+    private Statement assign(Variable target, Expression exp)
+    {
+        if (!isInlinable(exp))
+            return assignment(target, expression(exp));
+        List<Statement> stmts = new ArrayList<Statement>();
+        Variable result = inline((ProcedureCall) exp, stmts);
+        stmts.add(assignment(target, result));
+        return new Block(stmts);
+    }
+
+    /**
+     * Adds the statements that compute a call in place of the call.
+     * @param call the call
+     * @param stmts the list the statements are added to
+     * @return the temporary that holds the result
+     */
+    private Variable inline(ProcedureCall call, List<Statement> stmts)
+    {
+        ProcedureDeclaration proc = call.getDeclaration();
+        Variable[] slots = new Variable[proc.getFrameSize()];
+        for (int i = 0; i < slots.length; i++)
+            slots[i] = temps.make();
+        List<Expression> args = call.getArgs();
+        for (int i = 0; i < args.size(); i++)
+            stmts.add(assign(slots[1 + i], args.get(i)));
+        stmts.add(assignment(slots[0], new ast.Number(0)));
+        for (int i = 1 + args.size(); i < slots.length; i++)
+            stmts.add(assignment(slots[i], new ast.Number(0)));
+        Variable[] caller = frame;
+        frame = slots;
+        stmts.add(statement(proc.getStmt()));
+        frame = caller;
+        return slots[0];
+    }
+
+    /**
+     * Checks whether an expression is a call to a procedure that is inlined, and that
+     * none of the globals the procedure uses is hidden by a local where the call is.
+     * @param exp the expression
+     * @return true if it is
+     */
+    private boolean isInlinable(Expression exp)
+    {
+        if (!(exp instanceof ProcedureCall))
+            return false;
+        Set<String> globals = inlinable.get(((ProcedureCall) exp).getDeclaration());
+        return globals != null && Collections.disjoint(globals, locals);
+    }
+
+    /**
+     * Finds the variable an assignment writes, renamed if it is in an inlined body.
+     * @param assign the original assignment
+     * @return the variable
+     */
+    private Variable target(Assignment assign)
+    {
+        if (frame != null)
+            return rename(assign.getVariable(), assign.getDepth(), assign.getSlot());
+        Variable var = new Variable(assign.getVariable());
+        var.resolve(assign.getDepth(), assign.getSlot());
+        return var;
+    }
+
+    /**
+     * Renames a variable of an inlined body: a slot of its frame becomes that slot's
+     * temporary, and a global is resolved from where the body now runs.
+     * @param name the name of the variable
+     * @param depth its depth in the inlined procedure
+     * @param slot its slot
+     * @return the renamed variable
+     */
+    private Variable rename(String name, int depth, int slot)
+    {
+        Variable var;
+        if (depth == 0)
+        {
+            var = new Variable(frame[slot].getName());
+            var.resolve(frame[slot].getDepth(), frame[slot].getSlot());
+        }
+        else
+        {
+            var = new Variable(name);
+            var.resolve(temps.inProcedure() ? 1 : 0, slot);
+        }
+        return var;
+    }
+
+    /**
+     * Builds an assignment of an expression to a resolved variable.
+     * @param target the variable
+     * @param exp the new expression
+     * @return the assignment
+     */
+    private static Assignment assignment(Variable target, Expression exp)
+    {
+        Assignment assign = new Assignment(target.getName(), exp);
+        assign.resolve(target.getDepth(), target.getSlot());
+        return assign;
+    }
+
+    /**
+     * Adds the names of the globals that a procedure body reads or assigns.
+     * @param node a statement or expression of the body
+     * @param globals the set of names added to
+     */
+    private static void globals(Object node, Set<String> globals)
+    {
+        if (node instanceof Variable && ((Variable) node).getDepth() == 1)
+            globals.add(((Variable) node).getName());
+        if (node instanceof Assignment && ((Assignment) node).getDepth() == 1)
+            globals.add(((Assignment) node).getVariable());
+        for (Object child : Trees.children(node))
+            globals(child, globals);
+    }
+
+    /**
+     * Checks whether a procedure can call itself, directly or through other procedures.
+     * @param proc the procedure
+     * @return true if it is recursive
+     */
+    private static boolean recursive(ProcedureDeclaration proc)
+    {
+        Set<ProcedureDeclaration> seen = new HashSet<ProcedureDeclaration>();
+        List<ProcedureDeclaration> work = new ArrayList<ProcedureDeclaration>();
+        Trees.calls(proc.getStmt(), work);
+        while (!work.isEmpty())
+        {
+            ProcedureDeclaration next = work.remove(work.size() - 1);
+            if (next == proc)
+                return true;
+            if (seen.add(next))
+                Trees.calls(next.getStmt(), work);
+        }
+        return false;
+    }
+
+    /**
+     * Counts the statements and expressions in a node.
+     * @param node a statement or expression
+     * @return the number of nodes
+     */
+    private static int size(Object node)
+    {
+        int size = 1;
+        for (Object child : Trees.children(node))
+            size += size(child);
+        return size;
+    }
+}
@@ -0,0 +1,198 @@
+package optimizer;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import ast.*;
+
+/**
+ * LoopInvariantMover hoists arithmetic that gives the same value on every iteration of a
+ * WHILE loop out of the loop. A BinOp is invariant when no variable it reads is assigned
+ * anywhere in the loop and, if the loop calls a procedure that is not pure, every
+ * variable it reads is a local of the enclosing procedure, which no call can change. Each
+ * largest invariant BinOp is computed once into a temporary just before the loop, and
+ * the loop reads the temporary instead.
+ *
+ * Temporaries are new globals in the main statement and new locals in procedures, named
+ * tmp0, tmp1 and so on, skipping names already in use. Only BinOps that read a variable
+ * and cannot fail are hoisted, since a hoisted BinOp is computed even when the loop body
+ * never runs.
+ *
+ * @author Montek Kalsi
+ * @version 10/17/26
+ */
+public class LoopInvariantMover extends Rewriter
+{
+    private Temporaries temps;
+    private Map<BinOp, Variable> hoisted = new IdentityHashMap<BinOp, Variable>();
+
+    /**
+     * Hoists the loop invariants of a Program, resolving it first if needed. The original
+     * is left unchanged.
+     * @param program the program
+     * @return the new program
+     */
+    public static Program move(Program program)
+    {
+        return new LoopInvariantMover().rewrite(program);
+    }
+
+    /**
+     * Rewrites a Program, then adds the temporaries of the main statement to its globals.
+     * @param program the program
+     * @return the new program
+     */
+    public Program rewrite(Program program)
+    {
+        program.resolve();
+        temps = new Temporaries(program);
+        return temps.finish(super.rewrite(program));
+    }
+
+    /**
+     * Hoists the loop invariants of a procedure, adding its temporaries to its locals.
+     * @param proc the procedure
+     * @return the new procedure
+     */
+    protected ProcedureDeclaration procedure(ProcedureDeclaration proc)
+    {
+        temps.enter(proc);
+        return temps.leave(proc, statement(proc.getStmt()));
+    }
+
+    /**
+     * Rewrites a statement; a WHILE loop is preceded by the computation of its
+     * invariants.
+     * @param stmt the statement
+     * @return the new statement
+     */
+    protected Statement statement(Statement stmt)
+    {
+        if (!(stmt instanceof While))
+            return super.statement(stmt);
+        While loop = (While) stmt;
+        Set<Long> assigned = new HashSet<Long>();
+        assignments(loop, assigned);
+        boolean impure = Trees.hasImpureCall(loop);
+        List<BinOp> found = new ArrayList<BinOp>();
+        invariants(loop, assigned, impure, found);
+        if (found.isEmpty())
+            return super.statement(loop);
+        List<Statement> stmts = new ArrayList<Statement>();
+        for (BinOp bin : found)
+        {
+            Variable temp = temps.make();
+            Assignment init = new Assignment(temp.getName(), super.expression(bin));
+            init.resolve(temp.getDepth(), temp.getSlot());
+            stmts.add(init);
+            hoisted.put(bin, temp);
+        }
+        stmts.add(super.statement(loop));
+        return new Block(stmts);
+    }
+
+    /**
+     * Reads a hoisted BinOp from its temporary.
+     * @param exp the expression
+     * @return the new expression
+     */
+    protected Expression expression(Expression exp)
+    {
+        Variable temp = hoisted.get(exp);
+        if (temp == null)
+            return super.expression(exp);
+        Variable copy = new Variable(temp.getName());
+        copy.resolve(temp.getDepth(), temp.getSlot());
+        return copy;
+    }
+
+    /**
+     * Makes the key of a resolved variable.
+     * @param depth its depth
+     * @param slot its slot
+     * @return the key
+     */
+    private static long key(int depth, int slot)
+    {
+        return ((long) depth << 32) | slot;
+    }
+
+    /**
+     * Adds every variable assigned anywhere inside a node.
+     * @param node a statement or expression
+     * @param assigned the set of keys added to
+     */
+    private static void assignments(Object node, Set<Long> assigned)
+    {
+        if (node instanceof Assignment)
+            assigned.add(key(((Assignment) node).getDepth(), ((Assignment) node).getSlot()));
+        for (Object child : Trees.children(node))
+            assignments(child, assigned);
+    }
+
+    /**
+     * Finds the largest invariant BinOps inside a node, skipping ones already hoisted out
+     * of an enclosing loop.
+     * @param node a statement or expression
+     * @param assigned the variables assigned in the loop
+     * @param impure whether the loop calls a procedure that is not pure
+     * @param found the list added to
+     */
+    private void invariants(Object node, Set<Long> assigned, boolean impure, List<BinOp> found)
+    {
+        if (node instanceof BinOp && !hoisted.containsKey(node)
+                && invariant((Expression) node, assigned, impure)
+                && readsVariable(node) && !Trees.mayFail((Expression) node))
+        {
+            found.add((BinOp) node);
+            return;
+        }
+        if (hoisted.containsKey(node))
+            return;
+        for (Object child : Trees.children(node))
+            invariants(child, assigned, impure, found);
+    }
+
+    /**
+     * Checks whether an expression has the same value on every iteration of the loop.
+     * @param exp the expression
+     * @param assigned the variables assigned in the loop
+     * @param impure whether the loop calls a procedure that is not pure
+     * @return true if it is invariant
+     */
+    private boolean invariant(Expression exp, Set<Long> assigned, boolean impure)
+    {
+        if (exp instanceof ProcedureCall)
+            return false;
+        if (exp instanceof Variable)
+        {
+            Variable var = (Variable) exp;
+            if (assigned.contains(key(var.getDepth(), var.getSlot())))
+                return false;
+            return !impure || (temps.inProcedure() && var.getDepth() == 0);
+        }
+        for (Object child : Trees.children(exp))
+            if (!invariant((Expression) child, assigned, impure))
+                return false;
+        return true;
+    }
+
+    /**
+     * Checks whether a node reads any variable.
+     * @param node a statement or expression
+     * @return true if it reads a variable
+     */
+    private static boolean readsVariable(Object node)
+    {
+        if (node instanceof Variable)
+            return true;
+        for (Object child : Trees.children(node))
+            if (readsVariable(child))
+                return true;
+        return false;
+    }
+}
@@ -0,0 +1,51 @@
+package optimizer;
+
+import java.util.Arrays;
+
+import ast.Program;
+import binary.AstWriter;
+
+/**
+ * Optimizer runs the optimization passes over a Program. Each pass is a Rewriter, so the
+ * result is a new resolved Program that can be interpreted or compiled to MIPS, and the
+ * original is left unchanged. Small procedures are inlined first, so their bodies are
+ * folded with the arguments of each call. The passes are repeated while they still change the
+ * program, since removing a branch can make more constants known. Dead assignments are
+ * removed, so globals that the program never reads do not keep their final values.
+ * Loop invariants are hoisted last, once there is nothing left to fold.
+ *
+ * @author Montek Kalsi
+ * @version 10/17/26
+ */
+public class Optimizer
+{
+    // the most times the passes are repeated while they keep changing the program
+    private static final int MAX_ROUNDS = 4;
+
+    /**
+     * Constructs nothing; Optimizer only has static methods.
+     */
+    private Optimizer()
+    {
+    }
+
+    /**
+     * Optimizes a Program, resolving it first if needed.
+     * @param program the program
+     * @return the optimized program
+     */
+    public static Program optimize(Program program)
+    {
+        program = Inliner.inline(program);
+        byte[] before = AstWriter.write(program);
+        for (int round = 0; round < MAX_ROUNDS; round++)
+        {
+            program = DeadCodeEliminator.eliminate(ConstantFolder.fold(program));
+            byte[] after = AstWriter.write(program);
+            if (Arrays.equals(before, after))
+                break;
+            before = after;
+        }
+        return LoopInvariantMover.move(program);
+    }
+}
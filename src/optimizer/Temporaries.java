@@ -0,0 +1,119 @@
+package optimizer;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import ast.*;
+
+/**
+ * Temporaries makes the new variables that a pass needs while rewriting a Program. In the
+ * main statement a temporary is a new global; in a procedure it is a new local after the
+ * procedure's own slots. Temporaries are named tmp0, tmp1 and so on, skipping names the
+ * program already uses.
+ *
+ * @author Montek Kalsi
+ * @version 10/17/26
+ */
+final class Temporaries
+{
+    private Set<String> names = new HashSet<String>();
+    private int next;
+    private List<String> globals;
+    private List<String> variables;
+    private ProcedureDeclaration current;
+    private List<String> locals;
+
+    /**
+     * Constructs the Temporaries for a resolved Program.
+     * @param program the program being rewritten
+     */
+    Temporaries(Program program)
+    {
+        globals = new ArrayList<String>(program.getGlobals());
+        variables = new ArrayList<String>(program.getVariables());
+        names.addAll(globals);
+        for (ProcedureDeclaration proc : program.getProcedures())
+        {
+            names.add(proc.getName());
+            names.addAll(proc.getArgs());
+            names.addAll(proc.getVars());
+        }
+    }
+
+    /**
+     * Starts making temporaries for a procedure instead of the main statement.
+     * @param proc the procedure about to be rewritten
+     */
+    void enter(ProcedureDeclaration proc)
+    {
+        current = proc;
+        locals = new ArrayList<String>();
+    }
+
+    /**
+     * Stops making temporaries for a procedure and copies it with its new body and
+     * temporaries.
+     * @param proc the procedure that was rewritten
+     * @param body its new body
+     * @return the new procedure
+     */
+    ProcedureDeclaration leave(ProcedureDeclaration proc, Statement body)
+    {
+        List<String> vars = new ArrayList<String>(proc.getVars());
+        vars.addAll(locals);
+        ProcedureDeclaration copy = new ProcedureDeclaration(proc.getName(), body,
+                proc.getArgs(), locals.isEmpty() ? proc.getVars() : vars);
+        copy.setFrameSize(proc.getFrameSize() + locals.size());
+        copy.setPure(proc.isPure());
+        current = null;
+        return copy;
+    }
+
+    /**
+     * Checks whether temporaries are being made for a procedure.
+     * @return true inside a procedure, false in the main statement
+     */
+    boolean inProcedure()
+    {
+        return current != null;
+    }
+
+    /**
+     * Makes a new temporary.
+     * @return a variable resolved to the temporary
+     */
+    Variable make()
+    {
+        String name;
+        do
+            name = "tmp" + next++;
+        while (!names.add(name));
+        Variable var = new Variable(name);
+        if (current == null)
+        {
+            var.resolve(0, globals.size());
+            globals.add(name);
+            variables.add(name);
+        }
+        else
+        {
+            var.resolve(0, current.getFrameSize() + locals.size());
+            locals.add(name);
+        }
+        return var;
+    }
+
+    /**
+     * Adds the temporaries of the main statement to a rewritten Program.
+     * @param result the rewritten program
+     * @return the program
+     */
+    Program finish(Program result)
+    {
+        result.setGlobals(globals);
+        result.setVariables(new ArrayList<String>(variables));
+        return result;
+    }
+}
@@ -0,0 +1,167 @@
+package optimizer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import ast.*;
+
+/**
+ * Trees has helpers that the optimization passes use to look through the nodes of a
+ * Program without rewriting them.
+ *
+ * @author Montek Kalsi
+ * @version 10/17/26
+ */
+final class Trees
+{
+    /**
+     * Constructs nothing; Trees only has static methods.
+     */
+    private Trees()
+    {
+    }
+
+    /**
+     * Lists the statements and expressions directly under a node, in evaluation order.
+     * @param node a statement or expression
+     * @return its children
+     */
+    static List<Object> children(Object node)
+    {
+        List<Object> children = new ArrayList<Object>();
+        if (node instanceof BinOp)
+        {
+            children.add(((BinOp) node).getLeft());
+            children.add(((BinOp) node).getRight());
+        }
+        else if (node instanceof Condition)
+        {
+            children.add(((Condition) node).getLeft());
+            children.add(((Condition) node).getRight());
+        }
+        else if (node instanceof ProcedureCall)
+            children.addAll(((ProcedureCall) node).getArgs());
+        else if (node instanceof Writeln)
+            children.add(((Writeln) node).getExpression());
+        else if (node instanceof Assignment)
+            children.add(((Assignment) node).getExpression());
+        else if (node instanceof Block)
+            children.addAll(((Block) node).getStatements());
+        else if (node instanceof If)
+        {
+            If ifStmt = (If) node;
+            children.add(ifStmt.getCondition());
+            children.add(ifStmt.getStatement());
+            if (ifStmt.getElse() != null)
+                children.add(ifStmt.getElse());
+        }
+        else if (node instanceof While)
+        {
+            children.add(((While) node).getCondition());
+            children.add(((While) node).getStatement());
+        }
+        else
+            return Collections.emptyList();
+        return children;
+    }
+
+    /**
+     * Checks whether a node calls a procedure anywhere inside it.
+     * @param node a statement or expression
+     * @return true if it contains a call
+     */
+    static boolean hasCall(Object node)
+    {
+        if (node instanceof ProcedureCall)
+            return true;
+        for (Object child : children(node))
+            if (hasCall(child))
+                return true;
+        return false;
+    }
+
+    /**
+     * Checks whether a node calls a procedure that is not pure anywhere inside it. Only
+     * such a call can change a global or print.
+     * @param node a statement or expression
+     * @return true if it contains an impure call
+     */
+    static boolean hasImpureCall(Object node)
+    {
+        if (node instanceof ProcedureCall
+                && !((ProcedureCall) node).getDeclaration().isPure())
+            return true;
+        for (Object child : children(node))
+            if (hasImpureCall(child))
+                return true;
+        return false;
+    }
+
+    /**
+     * Checks whether evaluating an expression could fail or never finish: whether it
+     * calls a procedure or divides by anything but a nonzero number.
+     * @param exp the expression
+     * @return true if it might not simply produce a value
+     */
+    static boolean mayFail(Expression exp)
+    {
+        if (exp instanceof ProcedureCall)
+            return true;
+        if (exp instanceof BinOp)
+        {
+            BinOp bin = (BinOp) exp;
+            String op = bin.getOperator();
+            if ((op.equals("/") || op.equals("%")) && !(bin.getRight() instanceof ast.Number
+                    && ((ast.Number) bin.getRight()).getValue() != 0))
+                return true;
+        }
+        for (Object child : children(exp))
+            if (mayFail((Expression) child))
+                return true;
+        return false;
+    }
+
+    /**
+     * Checks whether a node reads a variable anywhere inside it.
+     * @param node a statement or expression
+     * @param depth the depth of the variable
+     * @param slot the slot of the variable
+     * @return true if it reads the variable
+     */
+    static boolean reads(Object node, int depth, int slot)
+    {
+        if (node instanceof Variable)
+        {
+            Variable var = (Variable) node;
+            return var.getDepth() == depth && var.getSlot() == slot;
+        }
+        for (Object child : children(node))
+            if (reads(child, depth, slot))
+                return true;
+        return false;
+    }
+
+    /**
+     * Adds every procedure called anywhere inside a node.
+     * @param node a statement or expression
+     * @param calls the list added to
+     */
+    static void calls(Object node, List<ProcedureDeclaration> calls)
+    {
+        if (node instanceof ProcedureCall)
+            calls.add(((ProcedureCall) node).getDeclaration());
+        for (Object child : children(node))
+            calls(child, calls);
+    }
+
+    /**
+     * Checks whether a statement does nothing: an empty block.
+     * @param stmt the statement
+     * @return true if it does nothing
+     */
+    static boolean isEmpty(Statement stmt)
+    {
+        return stmt instanceof Block && ((Block) stmt).getStatements().isEmpty();
+    }
+}
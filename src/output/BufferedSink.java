@@ -0,0 +1,48 @@
+package output;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A BufferedSink writes batches of lines to an OutputStream, so a PrintStream such as
+ * System.out is locked once per batch rather than once per value.
+ *
+ * @author Montek Kalsi
+ * @version 10/17/26
+ */
+public class BufferedSink extends ByteSink
+{
+    private final OutputStream out;
+
+    /**
+     * Constructs a sink with an 8K buffer.
+     * @param out the stream written to
+     */
+    public BufferedSink(OutputStream out)
+    {
+        this(out, 8192);
+    }
+
+    /**
+     * Constructs a sink.
+     * @param out the stream written to
+     * @param size the number of bytes buffered
+     */
+    public BufferedSink(OutputStream out, int size)
+    {
+        super(size);
+        this.out = out;
+    }
+
+    /**
+     * Writes a batch to the stream and flushes the stream.
+     * @param bytes the buffer
+     * @param length the number of bytes to write
+     * @throws IOException if the stream fails
+     */
+    protected void write(byte[] bytes, int length) throws IOException
+    {
+        out.write(bytes, 0, length);
+        out.flush();
+    }
+}
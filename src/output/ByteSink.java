@@ -0,0 +1,99 @@
+package output;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * A ByteSink formats values straight into a reusable byte buffer, without making a
+ * String for each, and hands the buffer to its subclass only when it fills or is
+ * flushed. Writes that fail throw UncheckedIOException.
+ *
+ * @author Montek Kalsi
+ * @version 10/17/26
+ */
+public abstract class ByteSink implements OutputSink
+{
+    // the longest line: a sign, ten digits and a newline
+    private static final int LINE = 12;
+
+    private final byte[] buffer;
+    private int count;
+
+    /**
+     * Constructs a sink.
+     * @param size the number of bytes buffered
+     */
+    protected ByteSink(int size)
+    {
+        buffer = new byte[Math.max(size, LINE)];
+    }
+
+    /**
+     * Formats an int and a newline into the buffer.
+     * @param value the value
+     */
+    public void writeInt(int value)
+    {
+        if (count + LINE > buffer.length)
+            flush();
+        long v = value;
+        if (v < 0)
+        {
+            buffer[count++] = '-';
+            v = -v;
+        }
+        int end = count + digits(v);
+        for (int i = end - 1; i >= count; i--)
+        {
+            buffer[i] = (byte) ('0' + v % 10);
+            v /= 10;
+        }
+        buffer[end] = '\n';
+        count = end + 1;
+    }
+
+    /**
+     * Counts the decimal digits of a non-negative number.
+     * @param v the number
+     * @return the number of digits
+     */
+    private static int digits(long v)
+    {
+        int n = 1;
+        while (v >= 10)
+        {
+            v /= 10;
+            n++;
+        }
+        return n;
+    }
+
+    /**
+     * Hands everything buffered to the subclass.
+     */
+    public void flush()
+    {
+        if (count == 0)
+            return;
+        try
+        {
+            write(buffer, count);
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+        finally
+        {
+            count = 0;
+        }
+    }
+
+    /**
+     * Writes a batch of formatted lines.
+     * @param bytes the buffer, which must not be kept
+     * @param length the number of bytes to write
+     * @throws IOException if the write fails
+     */
+    protected abstract void write(byte[] bytes, int length) throws IOException;
+}
@@ -0,0 +1,50 @@
+package output;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A ChannelSink writes large batches of lines to a FileChannel, one write call per
+ * batch.
+ *
+ * @author Montek Kalsi
+ * @version 10/17/26
+ */
+public class ChannelSink extends ByteSink
+{
+    private final FileChannel channel;
+
+    /**
+     * Constructs a sink with a 64K buffer.
+     * @param channel the channel written to
+     */
+    public ChannelSink(FileChannel channel)
+    {
+        this(channel, 1 << 16);
+    }
+
+    /**
+     * Constructs a sink.
+     * @param channel the channel written to
+     * @param size the number of bytes buffered
+     */
+    public ChannelSink(FileChannel channel, int size)
+    {
+        super(size);
+        this.channel = channel;
+    }
+
+    /**
+     * Writes a batch to the channel.
+     * @param bytes the buffer
+     * @param length the number of bytes to write
+     * @throws IOException if the channel fails
+     */
+    protected void write(byte[] bytes, int length) throws IOException
+    {
+        ByteBuffer batch = ByteBuffer.wrap(bytes, 0, length);
+        while (batch.hasRemaining())
+            channel.write(batch);
+    }
+}
@@ -0,0 +1,48 @@
+package output;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A CollectingSink keeps everything written to it in memory, for tests and for capturing
+ * the output of one job among many.
+ *
+ * @author Montek Kalsi
+ * @version 10/17/26
+ */
+public class CollectingSink extends ByteSink
+{
+    private byte[] collected = new byte[256];
+    private int size;
+
+    /**
+     * Constructs an empty sink.
+     */
+    public CollectingSink()
+    {
+        super(1024);
+    }
+
+    /**
+     * Appends a batch to what has been collected.
+     * @param bytes the buffer
+     * @param length the number of bytes to append
+     */
+    protected void write(byte[] bytes, int length)
+    {
+        if (size + length > collected.length)
+            collected = Arrays.copyOf(collected, Math.max(collected.length * 2, size + length));
+        System.arraycopy(bytes, 0, collected, size, length);
+        size += length;
+    }
+
+    /**
+     * Outputs everything written so far, one value per line.
+     * @return the text
+     */
+    public String getText()
+    {
+        flush();
+        return new String(collected, 0, size, StandardCharsets.US_ASCII);
+    }
+}
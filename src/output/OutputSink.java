@@ -0,0 +1,23 @@
+package output;
+
+/**
+ * An OutputSink is where WRITELN sends its values. Sinks may hold values back, so whoever
+ * runs a program flushes the sink when the program ends. Sinks are not thread-safe; each
+ * run of a program writes to its own.
+ *
+ * @author Montek Kalsi
+ * @version 10/17/26
+ */
+public interface OutputSink
+{
+    /**
+     * Writes an int in decimal followed by a newline.
+     * @param value the value
+     */
+    void writeInt(int value);
+
+    /**
+     * Writes out any values held back.
+     */
+    void flush();
+}
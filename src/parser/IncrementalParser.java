@@ -0,0 +1,189 @@
+package parser;
+
+import java.io.IOException;
+import java.util.ArrayList;
+
+import ast.ProcedureDeclaration;
+import ast.Program;
+import ast.Rewriter;
+import ast.Statement;
+import scanner.ScanErrorException;
+import scanner.Scanner;
+import scanner.TokenType;
+
+/**
+ * IncrementalParser keeps a program's source and its parsed Program up to date as the
+ * source is edited. The source is divided into top-level units: the VAR declarations,
+ * each PROCEDURE declaration, and the main statement. A unit runs from its first token
+ * up to the first token of the next unit. An edit that stays inside one procedure or
+ * inside the main statement re-lexes and re-parses only that unit. Every other
+ * ProcedureDeclaration of the previous Program is copied rather than parsed again, so
+ * each Program returned stays independent of the later ones. Any other edit, or one
+ * that changes where units begin or end, falls back to parsing the whole source.
+ *
+ * Usage:
+ * IncrementalParser inc = new IncrementalParser(source);
+ * Program p = inc.edit(offset, removedLength, insertedText);
+ *
+ * @author Montek Kalsi
+ * @version 10/17/26
+ */
+public class IncrementalParser
+{
+    private char[] text;
+    private Program program;
+
+    // the offset of the first token of each procedure, followed by that of the main statement
+    private int[] starts;
+
+    /**
+     * Parses a whole source.
+     * @param source the source of the program
+     * @throws ScanErrorException if the source contains an illegal character
+     * @throws IOException if there is any basic error
+     */
+    public IncrementalParser(String source) throws ScanErrorException, IOException
+    {
+        parseAll(source.toCharArray());
+    }
+
+    /**
+     * Outputs the Program for the current source.
+     * @return the current Program
+     */
+    public Program getProgram()
+    {
+        return program;
+    }
+
+    /**
+     * Outputs the current source.
+     * @return the source text
+     */
+    public String getText()
+    {
+        return new String(text);
+    }
+
+    /**
+     * Applies an edit to the source and updates the Program. Only the unit that contains
+     * the edit is parsed again when possible. If the edited source does not parse, the
+     * source and Program are left as they were before the edit.
+     * @param offset the offset at which text is removed and inserted
+     * @param removed the number of characters removed
+     * @param inserted the text inserted in their place
+     * @return the Program for the edited source
+     * @throws ScanErrorException if the edited source contains an illegal character
+     * @throws IOException if there is any basic error
+     */
+    public Program edit(int offset, int removed, String inserted)
+            throws ScanErrorException, IOException
+    {
+        if (offset < 0 || removed < 0 || offset + removed > text.length)
+            throw new IndexOutOfBoundsException("edit outside the source");
+        char[] edited = new char[text.length - removed + inserted.length()];
+        System.arraycopy(text, 0, edited, 0, offset);
+        inserted.getChars(0, inserted.length(), edited, offset);
+        System.arraycopy(text, offset + removed, edited, offset + inserted.length(),
+                text.length - offset - removed);
+        int oldLength = text.length;
+
+        int unit = -1;
+        for (int i = starts.length - 1; i >= 0 && unit < 0; i--)
+        {
+            int end = i + 1 < starts.length ? starts[i + 1] : oldLength;
+            if (starts[i] <= offset && offset + removed <= end)
+                unit = i;
+        }
+        if (unit < 0 || !reparseUnit(unit, edited, inserted.length() - removed, oldLength))
+            parseAll(edited);
+        return program;
+    }
+
+    /**
+     * Parses one unit of the edited source again and, if it still parses as exactly one
+     * unit of the same sort, splices it into a copy of the Program. The other units are
+     * copied rather than shared, since resolving the new Program writes into its nodes
+     * and the old Program may still be running.
+     * @param unit the index of the unit in starts
+     * @param edited the edited source
+     * @param delta the change in length of the source
+     * @param oldLength the length of the source before the edit
+     * @return false if the whole source must be parsed again instead
+     */
+    private boolean reparseUnit(int unit, char[] edited, int delta, int oldLength)
+    {
+        int start = starts[unit];
+        int end = (unit + 1 < starts.length ? starts[unit + 1] : oldLength) + delta;
+        // the scanner stops at a period, so a unit containing one would parse as if it
+        // ended there; only a full parse can tell whether the period ends the program
+        for (int i = start; i < end; i++)
+            if (edited[i] == '.')
+                return false;
+        Program copy;
+        ArrayList<ProcedureDeclaration> procs;
+        Statement stmt;
+        try
+        {
+            copy = new Rewriter().rewrite(program);
+            procs = new ArrayList<ProcedureDeclaration>(copy.getProcedures());
+            stmt = copy.getStatement();
+            Parser parser = new Parser(new Scanner(edited, start, end - start));
+            if (unit < procs.size())
+            {
+                if (parser.currentKind() != TokenType.PROCEDURE)
+                    return false;
+                procs.set(unit, parser.parseProcedure());
+            }
+            else
+                stmt = parser.parseStatement();
+            if (parser.currentKind() != TokenType.EOF)
+                return false;
+        }
+        catch (ScanErrorException | IOException | RuntimeException e)
+        {
+            return false;
+        }
+        for (int i = unit + 1; i < starts.length; i++)
+            starts[i] += delta;
+        Program p = new Program();
+        p.setVariables(copy.getVariables());
+        p.setProcedure(procs);
+        p.setStatement(stmt);
+        text = edited;
+        program = p;
+        return true;
+    }
+
+    /**
+     * Parses a whole source, recording where each unit begins. The source, unit starts
+     * and Program are only replaced once the source has parsed.
+     * @param source the source to parse
+     * @throws ScanErrorException if the source contains an illegal character
+     * @throws IOException if there is any basic error
+     */
+    private void parseAll(char[] source) throws ScanErrorException, IOException
+    {
+        Scanner scanner = new Scanner(source);
+        Parser parser = new Parser(scanner);
+        Program p = new Program();
+        p.setVariables(parser.parseVariables());
+        ArrayList<ProcedureDeclaration> procs = new ArrayList<ProcedureDeclaration>();
+        ArrayList<Integer> unitStarts = new ArrayList<Integer>();
+        while (parser.currentKind() == TokenType.PROCEDURE)
+        {
+            unitStarts.add(scanner.getTokenStart());
+            procs.add(parser.parseProcedure());
+        }
+        unitStarts.add(parser.currentKind() == TokenType.EOF ? source.length
+                : scanner.getTokenStart());
+        p.setStatement(parser.parseStatement());
+        p.setProcedure(procs);
+        int[] newStarts = new int[unitStarts.size()];
+        for (int i = 0; i < newStarts.length; i++)
+            newStarts[i] = unitStarts.get(i);
+        text = source;
+        starts = newStarts;
+        program = p;
+    }
+}
@@ -0,0 +1,126 @@
+package parser;
+
+import ast.Program;
+import environment.Environment;
+import output.CollectingSink;
+
+/**
+ * IncrementalParserTester edits sources through an IncrementalParser and checks that
+ * each Program it returns behaves like a full parse of the same text, and that earlier
+ * Programs are not changed by later edits. It prints one line per check and a summary.
+ *
+ * @author Montek Kalsi
+ * @version 10/17/26
+ */
+public class IncrementalParserTester
+{
+    private static final String SOURCE =
+            "VAR a, b;\n"
+            + "PROCEDURE f(n);\n"
+            + "BEGIN\n"
+            + "  f := n + 1;\n"
+            + "END;\n"
+            + "PROCEDURE g(n);\n"
+            + "BEGIN\n"
+            + "  g := n * 2;\n"
+            + "END;\n"
+            + "BEGIN\n"
+            + "  a := f(3);\n"
+            + "  b := g(a);\n"
+            + "  WRITELN(a);\n"
+            + "  WRITELN(b);\n"
+            + "END;\n"
+            + ".";
+
+    private static int failures;
+
+    /**
+     * Runs every check.
+     * @param args not used
+     * @throws Exception if a check cannot be set up
+     */
+    public static void main(String[] args) throws Exception
+    {
+        oldProgramSurvivesEdit();
+        periodInsideUnit();
+        System.out.println(failures == 0 ? "all checks passed" : failures + " checks failed");
+    }
+
+    /**
+     * Runs a Program and captures what it prints, or the kind of exception it throws.
+     * @param program the program
+     * @return its output, one value per line
+     */
+    private static String run(Program program)
+    {
+        CollectingSink sink = new CollectingSink();
+        Environment env = new Environment();
+        env.setOutput(sink);
+        try
+        {
+            program.exec(env);
+        }
+        catch (RuntimeException e)
+        {
+            return sink.getText() + e.getClass().getSimpleName();
+        }
+        return sink.getText();
+    }
+
+    /**
+     * Prints the result of one check.
+     * @param name what was checked
+     * @param actual the value seen
+     * @param expected the value wanted
+     */
+    private static void check(String name, String actual, String expected)
+    {
+        boolean ok = actual.equals(expected);
+        if (!ok)
+            failures++;
+        System.out.println((ok ? "PASS " : "FAIL ") + name
+                + (ok ? "" : ": got [" + actual + "] expected [" + expected + "]"));
+    }
+
+    /**
+     * Edits one procedure so that it uses a new global, runs the new Program, and then
+     * runs the old Program again, which must still see only its own globals.
+     * @throws Exception if the source does not parse
+     */
+    private static void oldProgramSurvivesEdit() throws Exception
+    {
+        IncrementalParser inc = new IncrementalParser(SOURCE);
+        Program before = inc.getProgram();
+        check("first run", run(before), "4\n8\n");
+        int at = SOURCE.indexOf("g := n * 2;");
+        Program after = inc.edit(at, "g := n * 2;".length(), "c := 5; g := n * c;");
+        check("edited program", run(after), "4\n20\n");
+        check("procedures are not shared",
+                String.valueOf(before.getProcedures().get(0) == after.getProcedures().get(0)),
+                "false");
+        check("old program after the edit", run(before), "4\n8\n");
+    }
+
+    /**
+     * Inserts a period after the END of the last procedure. The period ends the program
+     * too early, so a full parse rejects the text, and so must the incremental parser.
+     * @throws Exception if the source does not parse
+     */
+    private static void periodInsideUnit() throws Exception
+    {
+        IncrementalParser inc = new IncrementalParser(SOURCE);
+        int at = SOURCE.indexOf("END;\nBEGIN") + "END;".length();
+        String outcome;
+        try
+        {
+            outcome = run(inc.edit(at, 0, "."));
+        }
+        catch (IllegalArgumentException e)
+        {
+            outcome = "rejected";
+        }
+        check("period inside a unit", outcome, "rejected");
+        check("source kept after the rejected edit", String.valueOf(inc.getText().equals(SOURCE)),
+                "true");
+    }
+}
@@ -21,7 +21,7 @@ import emitter.Emitter;
  * | IF cond THEN stmt | WHILE cond DO stmt
  * stmts → stmts stmt | ε
  * expr → expr + term | expr - term | term
- * term → term * factor | term / factor | factor
+ * term → term * factor | term / factor | term mod factor | factor
  * factor → ( expr ) | - factor | num | id ( maybeargs ) | id
  * maybeargs → args | ε
  * args → args , expr | expr
@@ -31,47 +31,85 @@ import emitter.Emitter;
  * As this is a recursive descent parser, there is a recursive method for every terminal
  * with form parseX. Each method simply returns its corresponding
  * Program, Statement, or Expression, with each specific class's exec/eval methods
- * either executing the statement or evaluating the expression.
+ * either executing the statement or evaluating the expression. Binary operators are the
+ * exception: expr, term and cond are all parsed by precedence climbing from a table that
+ * gives each operator token its precedence and the operator it builds, so a new binary
+ * operator only needs a new row in that table.
  *
  * @author Montek Kalsi
  * @version 12/5/19
  */
 public class Parser
 {
-    private Scanner scanner;
-    private String currentToken;
+    // precedence levels of binary operators; 0 means the token is not a binary operator
+    private static final int RELATIONAL = 1;
+    private static final int ADDITIVE = 2;
+    private static final int MULTIPLICATIVE = 3;
+
+    // the precedence and operator of each kind of token, indexed by TokenType ordinal
+    private static final int[] PRECEDENCE = new int[TokenType.values().length];
+    private static final String[] OPERATOR = new String[TokenType.values().length];
+
+    static
+    {
+        operator(TokenType.EQUAL, RELATIONAL, "=");
+        operator(TokenType.NOT_EQUAL, RELATIONAL, "<>");
+        operator(TokenType.LESS, RELATIONAL, "<");
+        operator(TokenType.GREATER, RELATIONAL, ">");
+        operator(TokenType.LESS_EQUAL, RELATIONAL, "<=");
+        operator(TokenType.GREATER_EQUAL, RELATIONAL, ">=");
+        operator(TokenType.PLUS, ADDITIVE, "+");
+        operator(TokenType.MINUS, ADDITIVE, "-");
+        operator(TokenType.TIMES, MULTIPLICATIVE, "*");
+        operator(TokenType.DIVIDE, MULTIPLICATIVE, "/");
+        operator(TokenType.MOD, MULTIPLICATIVE, "%");
+    }
 
     /**
-     * Constructor for a Parser which takes in a Scanner, using it to initialize the
-     * scanner instance variable. currentToken is defined to be the next Token in the scanner
-     * and a HashMap for variables is initialized where the key is a String and the value is an
-     * integer.
-     * @param scannerinput The given scanner
+     * Adds a row to the binary operator table.
+     * @param kind the kind of the operator token
+     * @param precedence the precedence of the operator; higher binds tighter
+     * @param op the operator given to the BinOp or Condition that is built
+     */
+    private static void operator(TokenType kind, int precedence, String op)
+    {
+        PRECEDENCE[kind.ordinal()] = precedence;
+        OPERATOR[kind.ordinal()] = op;
+    }
+
+    private TokenSource scanner;
+    private Token currentToken;
+
+    /**
+     * Constructor for a Parser which takes in a source of tokens, usually a Scanner, using
+     * it to initialize the scanner instance variable. currentToken is defined to be the
+     * next Token in the scanner.
+     * @param scannerinput The given scanner or other token source
      * @throws scanner.ScanErrorException if other methods have errors in scanning or parsing the
      * input
      * @throws java.io.IOException if there is a basic error
      */
-    public Parser(Scanner scannerinput) throws scanner.ScanErrorException, java.io.IOException
+    public Parser(TokenSource scannerinput) throws scanner.ScanErrorException, java.io.IOException
     {
         scanner = scannerinput;
-        currentToken = scanner.nextToken();
+        currentToken = scanner.next();
     }
 
     /**
-     * Eat takes in an expected token and updates curToken to the
-     * next token if the expected token matches the current one.
+     * Eat takes in an expected token kind and updates curToken to the
+     * next token if the expected kind matches the current one.
      * otherwise, it throws an illegal argument exception.
      * A scan error exception is thrown if the scanner is
      * at the end of the file.
      *
-     * @param expected the expected token
+     * @param expected the expected kind of token
      * @throws ScanErrorException if the scanner reaches the end
      */
-    private void eat(String expected) throws scanner.ScanErrorException, java.io.IOException
+    private void eat(TokenType expected) throws scanner.ScanErrorException, java.io.IOException
     {
-        if (currentToken.equals(expected))
+        if (currentToken.getKind() == expected)
         {
-            currentToken = scanner.nextToken();
+            currentToken = scanner.next();
         }
         else
         {
@@ -82,18 +120,29 @@ public class Parser
     }
 
     /**
-     * Eats the current token, a number, and returns the value. It
-     * removes parentheses and evaluates negatives as well.
+     * Eats the current token, a number, and returns the value.
      * @return the token in Number form
      * @throws ScanErrorException if the scanner is at the end
      */
     private Number parseNumber() throws scanner.ScanErrorException, java.io.IOException
     {
-        int num = Integer.parseInt(currentToken);
-        eat(currentToken);
+        int num = currentToken.getValue();
+        eat(TokenType.NUMBER);
         return new Number(num);
     }
 
+    /**
+     * Eats the current token, an identifier, and returns its interned name.
+     * @return the name of the identifier
+     * @throws ScanErrorException if the scanner is at the end
+     */
+    private String parseIdentifier() throws scanner.ScanErrorException, java.io.IOException
+    {
+        String name = currentToken.getText();
+        eat(TokenType.IDENTIFIER);
+        return name;
+    }
+
     /**
      * parseFactor recursively parses a factor by the grammar
      * 	 stmt -> WRITELN ( factor ) ;
@@ -108,114 +157,111 @@ public class Parser
      */
     private Expression parseFactor() throws ScanErrorException, IOException
     {
-        if(Scanner.isDigit(currentToken.charAt(0)))
-            return parseNumber();
-        else if(Scanner.isLetter(currentToken.charAt(0)))
+        switch (currentToken.getKind())
         {
-            String n = currentToken;
-            eat(n);
-            if(currentToken.equals("("))
+            case NUMBER:
+                return parseNumber();
+            case IDENTIFIER:
             {
-                eat("(");
-                List<Expression> params = new ArrayList<Expression>();
-                while(!currentToken.equals(")"))
+                String n = parseIdentifier();
+                if (currentToken.getKind() == TokenType.LPAREN)
                 {
-                    Expression param = parseExpression();
-                    params.add(param);
-                    if(!currentToken.equals(")"))
+                    eat(TokenType.LPAREN);
+                    List<Expression> params = new ArrayList<Expression>();
+                    while (currentToken.getKind() != TokenType.RPAREN)
                     {
-                        eat(",");
+                        Expression param = parseExpression();
+                        params.add(param);
+                        if (currentToken.getKind() != TokenType.RPAREN)
+                        {
+                            eat(TokenType.COMMA);
+                        }
                     }
+                    ProcedureCall call = new ProcedureCall(n, params);
+                    eat(TokenType.RPAREN);
+                    return call;
                 }
-                ProcedureCall call = new ProcedureCall(n,params);
-                eat(")");
-                return call;
+                return new Variable(n);
             }
-            return new Variable(n);
-        }
-        else if(currentToken.equals("("))
-        {
-            eat(currentToken);
-            Expression expr = parseExpression();
-            eat(")");
-            return expr;
-        }
-        else if (currentToken.equals("-"))
-        {
-            eat(currentToken);
-            Number num = (Number)parseFactor();
-            return new Number(-num.getValue());
-        }
-        else
-        {
-            Variable num = new Variable(currentToken);
-            eat(currentToken);
-            return num;
-        }
-    }
-
-    /**
-     * parseTerm parses the current term according to the grammar rule
-     * for it. Operators include *, /, and mod. After parsing
-     * the current term , its integer value is returned. Before returning the
-     * expression, parseFactor is called as parentheses and negatives are
-     * of higher precedence than multiplication and division.
-     * @return an expression for the current term
-     * @throws scanner.ScanErrorException if an invalid statement or expression is found
-     * @throws java.io.IOException if there is a basic error
-     */
-    public Expression parseTerm() throws scanner.ScanErrorException, java.io.IOException
-    {
-        Expression num = parseFactor();
-        while(currentToken.equals("*")||currentToken.equals("/")||currentToken.equals("mod"))
-        {
-            if (currentToken.equals("*"))
+            case LPAREN:
             {
-                eat("*");
-                num = new BinOp("*",num,parseFactor());
+                eat(TokenType.LPAREN);
+                Expression expr = parseExpression();
+                eat(TokenType.RPAREN);
+                return expr;
             }
-            else if(currentToken.equals("mod"))
+            case MINUS:
             {
-                eat("mod");
-                num = new BinOp("%",num,parseFactor());
+                eat(TokenType.MINUS);
+                Expression operand = parseFactor();
+                if (operand instanceof Number)
+                    return new Number(-((Number)operand).getValue());
+                return new BinOp("-", new Number(0), operand);
             }
-            else
+            default:
             {
-                eat("/");
-                num = new BinOp("/",num,parseFactor());
+                Variable num = new Variable(currentToken.getText());
+                eat(currentToken.getKind());
+                return num;
             }
         }
-        return num;
-
     }
 
     /**
-     * parseExpression parses the current expression using the grammar
-     * for expressions explained above. Operators for addition and
-     * subtraction are included. After parsing the current expression, it's
-     * returned. parseTerm is also performed before the addition and subtraction
-     * due to precedence.
+     * parseExpression parses an arithmetic expression using the grammar
+     * for expressions explained above, with the usual precedence of
+     * *, / and mod over + and -.
      * @return the current expression
      * @throws scanner.ScanErrorException if an invalid statement or expression is found
      * @throws java.io.IOException if there is a basic error
      */
     public Expression parseExpression() throws scanner.ScanErrorException, java.io.IOException
     {
-        Expression num = parseTerm();
-        while(currentToken.equals("+")||currentToken.equals("-"))
+        return parseExpression(ADDITIVE);
+    }
+
+    /**
+     * Parses an expression by precedence climbing. A factor is parsed first; then, while
+     * the current token is a binary operator that binds at least as tightly as
+     * minPrecedence, the operator is eaten and its right operand is parsed with a higher
+     * minimum precedence, so operators of equal precedence group to the left.
+     * @param minPrecedence the lowest precedence of operator that may be consumed
+     * @return the parsed expression
+     * @throws scanner.ScanErrorException if an invalid statement or expression is found
+     * @throws java.io.IOException if there is a basic error
+     */
+    private Expression parseExpression(int minPrecedence)
+            throws scanner.ScanErrorException, java.io.IOException
+    {
+        Expression num = parseFactor();
+        while (true)
         {
-            if (currentToken.equals("+"))
-            {
-                eat("+");
-                num = new BinOp("+",num,parseTerm());
-            }
+            TokenType kind = currentToken.getKind();
+            int precedence = PRECEDENCE[kind.ordinal()];
+            if (precedence == 0 || precedence < minPrecedence)
+                return num;
+            eat(kind);
+            Expression right = parseExpression(precedence + 1);
+            if (precedence == RELATIONAL)
+                num = new Condition(OPERATOR[kind.ordinal()], num, right);
             else
-            {
-                eat("-");
-                num = new BinOp("-",num,parseTerm());
-            }
+                num = new BinOp(OPERATOR[kind.ordinal()], num, right);
         }
-        return num;
+    }
+
+    /**
+     * parseCondition parses expr relop expr, the condition of an IF or WHILE.
+     * @return the parsed Condition
+     * @throws scanner.ScanErrorException if an invalid statement or expression is found
+     * @throws java.io.IOException if there is a basic error
+     */
+    private Condition parseCondition() throws ScanErrorException, IOException
+    {
+        Expression cond = parseExpression(RELATIONAL);
+        if (!(cond instanceof Condition))
+            throw new IllegalArgumentException("the token equals " + currentToken + " and it " +
+                    "should be a relational operator");
+        return (Condition) cond;
     }
 
     /**
@@ -228,63 +274,78 @@ public class Parser
      * @throws java.io.IOException if there is a basic error
      * @return a statement corresponding to the parsed statement.
      */
-    private Statement parseStatement() throws ScanErrorException, IOException
+    Statement parseStatement() throws ScanErrorException, IOException
     {
-        if(currentToken.equals("WRITELN"))
+        switch (currentToken.getKind())
         {
-            eat("WRITELN");
-            eat("(");
-            Expression num = parseExpression();
-            eat(")");
-            eat(";");
-            return new Writeln(num);
-        }
-        else if(currentToken.equalsIgnoreCase("IF"))
-        {
-            eat("IF");
-            Expression exp1 = parseExpression();
-            String operand = currentToken;
-            eat(operand);
-            Expression exp2 = parseExpression();
-            eat("THEN");
-            Statement stmt = parseStatement();
-            Statement ifstmt = new If(new Condition(operand,exp1,exp2),stmt);
-            return ifstmt;
-        }
-        else if(currentToken.equalsIgnoreCase("WHILE"))
-        {
-            eat("WHILE");
-            Expression exp1 = parseExpression();
-            String operand = currentToken;
-            eat(operand);
-            Expression exp2 = parseExpression();
-            eat("DO");
-            Statement stmt = parseStatement();
-            Statement whlstmt = new While(new Condition(operand,exp1,exp2),stmt);
-            return whlstmt;
-        }
-        else if(currentToken.equals("BEGIN"))
-        {
-            eat("BEGIN");
-            ArrayList<Statement> stmts = new ArrayList<Statement>();
-            while(!currentToken.equals("END"))
+            case WRITELN:
+            {
+                eat(TokenType.WRITELN);
+                eat(TokenType.LPAREN);
+                Expression num = parseExpression();
+                eat(TokenType.RPAREN);
+                eat(TokenType.SEMICOLON);
+                return new Writeln(num);
+            }
+            case IF:
+            {
+                eat(TokenType.IF);
+                Condition cond = parseCondition();
+                eat(TokenType.THEN);
+                Statement stmt = parseStatement();
+                return new If(cond, stmt);
+            }
+            case WHILE:
             {
-                stmts.add(parseStatement());
+                eat(TokenType.WHILE);
+                Condition cond = parseCondition();
+                eat(TokenType.DO);
+                Statement stmt = parseStatement();
+                return new While(cond, stmt);
+            }
+            case BEGIN:
+            {
+                eat(TokenType.BEGIN);
+                ArrayList<Statement> stmts = new ArrayList<Statement>();
+                while (currentToken.getKind() != TokenType.END
+                        && currentToken.getKind() != TokenType.EOF)
+                {
+                    stmts.add(parseStatement());
+                }
+                Block block = new Block(stmts);
+                eat(TokenType.END);
+                eat(TokenType.SEMICOLON);
+                return block;
+            }
+            default:
+            {
+                String key = parseIdentifier();
+                eat(TokenType.ASSIGN);
+                Expression val = parseExpression();
+                eat(TokenType.SEMICOLON);
+                return new Assignment(key,val);
             }
-            Block block = new Block(stmts);
-            eat("END");
-            eat(";");
-            return block;
         }
-        else
+    }
+
+    /**
+     * Parses a comma separated list of identifiers, stopping at the given kind of token
+     * without eating it.
+     * @param end the kind of token that ends the list
+     * @return the names in the list
+     * @throws ScanErrorException if an invalid identifier is found
+     * @throws java.io.IOException if there is any basic error
+     */
+    private ArrayList<String> parseNames(TokenType end) throws ScanErrorException, IOException
+    {
+        ArrayList<String> names = new ArrayList<String>();
+        while (currentToken.getKind() != end)
         {
-            String key = currentToken;
-            eat(key);
-            eat(":=");
-            Expression val = parseExpression();
-            eat(";");
-            return new Assignment(key,val);
+            names.add(parseIdentifier());
+            if (currentToken.getKind() == TokenType.COMMA)
+                eat(TokenType.COMMA);
         }
+        return names;
     }
 
     /**
@@ -299,51 +360,11 @@ public class Parser
     public Program parseProgram() throws ScanErrorException, IOException
     {
         Program p = new Program();
-        ArrayList<String> vars = new ArrayList<String>();
-        ArrayList<String> locals = new ArrayList<String>();
-        while (currentToken.equals("VAR"))
-        {
-            eat("VAR");
-            while (!currentToken.equals(";"))
-            {
-                vars.add(currentToken);
-                eat(currentToken);
-                if (currentToken.equals(","))
-                    eat(",");
-            }
-            eat(";");
-        }
-        List<String> params = new ArrayList<String>();
+        ArrayList<String> vars = parseVariables();
         ArrayList<ProcedureDeclaration> procs = new ArrayList<ProcedureDeclaration>();
-        while (currentToken.equals("PROCEDURE"))
+        while (currentToken.getKind() == TokenType.PROCEDURE)
         {
-            eat("PROCEDURE");
-            String s = currentToken;
-            eat(s);
-            eat("(");
-            while (!currentToken.equals(")"))
-            {
-                params.add(currentToken);
-                eat(currentToken);
-                if (currentToken.equals(","))
-                    eat(",");
-            }
-            eat(")");
-            eat(";");
-            if (currentToken.equals("VAR"))
-            {
-                eat("VAR");
-                while (!currentToken.equals(";"))
-                {
-                    locals.add(currentToken);
-                    eat(currentToken);
-                    if (currentToken.equals(","))
-                        eat(",");
-                }
-                eat(";");
-            }
-            Statement exec = parseStatement();
-            procs.add(new ProcedureDeclaration(s, exec, params, locals));
+            procs.add(parseProcedure());
         }
         Statement stmt = parseStatement();
         p.setStatement(stmt);
@@ -352,6 +373,59 @@ public class Parser
         return p;
     }
 
+    /**
+     * Parses the VAR declarations of global variables at the start of a program.
+     * @return the declared global variables
+     * @throws ScanErrorException if the current token does not equal the given token
+     * @throws java.io.IOException if there is any basic error
+     */
+    ArrayList<String> parseVariables() throws ScanErrorException, IOException
+    {
+        ArrayList<String> vars = new ArrayList<String>();
+        while (currentToken.getKind() == TokenType.VAR)
+        {
+            eat(TokenType.VAR);
+            vars.addAll(parseNames(TokenType.SEMICOLON));
+            eat(TokenType.SEMICOLON);
+        }
+        return vars;
+    }
+
+    /**
+     * Parses one procedure declaration:
+     * PROCEDURE id ( maybeparms ) ; [VAR ids ;] stmt
+     * @return the parsed ProcedureDeclaration
+     * @throws ScanErrorException if the current token does not equal the given token
+     * @throws java.io.IOException if there is any basic error
+     */
+    ProcedureDeclaration parseProcedure() throws ScanErrorException, IOException
+    {
+        eat(TokenType.PROCEDURE);
+        String s = parseIdentifier();
+        eat(TokenType.LPAREN);
+        List<String> params = parseNames(TokenType.RPAREN);
+        eat(TokenType.RPAREN);
+        eat(TokenType.SEMICOLON);
+        ArrayList<String> locals = new ArrayList<String>();
+        if (currentToken.getKind() == TokenType.VAR)
+        {
+            eat(TokenType.VAR);
+            locals = parseNames(TokenType.SEMICOLON);
+            eat(TokenType.SEMICOLON);
+        }
+        Statement exec = parseStatement();
+        return new ProcedureDeclaration(s, exec, params, locals);
+    }
+
+    /**
+     * Outputs the kind of the token the parser is looking at.
+     * @return the kind of the current token
+     */
+    TokenType currentKind()
+    {
+        return currentToken.getKind();
+    }
+
     /**
      * The main method to test the parser which creates a parser to parse
      * a file passed in as an input stream. parseProgram is then called.
@@ -0,0 +1,50 @@
+package profile;
+
+import ast.Condition;
+import environment.Environment;
+
+/**
+ * A ProfiledCondition times the condition it wraps. It is a Condition itself so that it
+ * can stand in an If or While.
+ *
+ * @author Montek Kalsi
+ * @version 10/17/26
+ */
+public final class ProfiledCondition extends Condition
+{
+    private final Condition cond;
+    private final Site site;
+    private final Profiler profiler;
+
+    /**
+     * Constructs the wrapper.
+     * @param cond the condition to time
+     * @param site where its time is recorded
+     * @param profiler the profiler that keeps the time
+     */
+    ProfiledCondition(Condition cond, Site site, Profiler profiler)
+    {
+        super(cond.getOperator(), cond.getLeft(), cond.getRight());
+        this.cond = cond;
+        this.site = site;
+        this.profiler = profiler;
+    }
+
+    /**
+     * Evaluates the wrapped condition between entering and leaving its site.
+     * @param env the environment
+     * @return 1 if the condition is true, otherwise 0
+     */
+    public int eval(Environment env)
+    {
+        long start = profiler.enter(site);
+        try
+        {
+            return cond.eval(env);
+        }
+        finally
+        {
+            profiler.exit(site, start);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package profile;
+
+import ast.Expression;
+import environment.Environment;
+
+/**
+ * A ProfiledExpression times the expression it wraps.
+ *
+ * @author Montek Kalsi
+ * @version 10/17/26
+ */
+public final class ProfiledExpression extends Expression
+{
+    private final Expression exp;
+    private final Site site;
+    private final Profiler profiler;
+
+    /**
+     * Constructs the wrapper.
+     * @param exp the expression to time
+     * @param site where its time is recorded
+     * @param profiler the profiler that keeps the time
+     */
+    ProfiledExpression(Expression exp, Site site, Profiler profiler)
+    {
+        this.exp = exp;
+        this.site = site;
+        this.profiler = profiler;
+    }
+
+    /**
+     * Evaluates the wrapped expression between entering and leaving its site.
+     * @param env the environment
+     * @return the value of the expression
+     */
+    public int eval(Environment env)
+    {
+        long start = profiler.enter(site);
+        try
+        {
+            return exp.eval(env);
+        }
+        finally
+        {
+            profiler.exit(site, start);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package profile;
+
+import ast.Statement;
+import environment.Environment;
+
+/**
+ * A ProfiledStatement times the statement it wraps.
+ *
+ * @author Montek Kalsi
+ * @version 10/17/26
+ */
+public final class ProfiledStatement extends Statement
+{
+    private final Statement stmt;
+    private final Site site;
+    private final Profiler profiler;
+
+    /**
+     * Constructs the wrapper.
+     * @param stmt the statement to time
+     * @param site where its time is recorded
+     * @param profiler the profiler that keeps the time
+     */
+    ProfiledStatement(Statement stmt, Site site, Profiler profiler)
+    {
+        this.stmt = stmt;
+        this.site = site;
+        this.profiler = profiler;
+    }
+
+    /**
+     * Executes the wrapped statement between entering and leaving its site.
+     * @param env the environment
+     */
+    public void exec(Environment env)
+    {
+        long start = profiler.enter(site);
+        try
+        {
+            stmt.exec(env);
+        }
+        finally
+        {
+            profiler.exit(site, start);
+        }
+    }
+}
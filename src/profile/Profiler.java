@@ -0,0 +1,242 @@
+package profile;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import ast.*;
+import ast.Number;
+
+/**
+ * Profiler records where an interpreted Program spends its time. instrument builds a copy
+ * of the Program in which every node is wrapped in a ProfiledStatement,
+ * ProfiledExpression or ProfiledCondition that counts its runs and times them, so the
+ * original Program, and any run without profiling, pays nothing. Procedures, WHILE loops
+ * and the main program are also frames of the call stack, and the time spent in each
+ * stack of frames is kept for a flame graph.
+ *
+ * A Profiler and the Programs it instruments are meant for one thread at a time.
+ *
+ * @author Montek Kalsi
+ * @version 10/17/26
+ */
+public class Profiler
+{
+    private final List<Site> sites = new ArrayList<Site>();
+    private final Map<String, Long> folded = new LinkedHashMap<String, Long>();
+
+    private long[] childTime = new long[64];
+    private int depth;
+    private String[] frames = new String[16];
+    private long[] frameChildTime = new long[16];
+    private int frameDepth;
+
+    /**
+     * Builds an instrumented copy of a Program, resolving the Program first if needed.
+     * @param program the program
+     * @return the copy, which records its time in this Profiler when run
+     */
+    public Program instrument(Program program)
+    {
+        return new Instrumenter().rewrite(program);
+    }
+
+    /**
+     * Outputs every site of the instrumented Programs.
+     * @return the sites, in the order they were made
+     */
+    public List<Site> getSites()
+    {
+        return sites;
+    }
+
+    /**
+     * Enters a site, just before its node runs.
+     * @param site the site
+     * @return the time it was entered, from System.nanoTime
+     */
+    long enter(Site site)
+    {
+        if (depth == childTime.length)
+            childTime = Arrays.copyOf(childTime, depth * 2);
+        childTime[depth++] = 0;
+        if (site.getFrame() != null)
+        {
+            if (frameDepth == frames.length)
+            {
+                frames = Arrays.copyOf(frames, frameDepth * 2);
+                frameChildTime = Arrays.copyOf(frameChildTime, frameDepth * 2);
+            }
+            frames[frameDepth] = site.getFrame();
+            frameChildTime[frameDepth++] = 0;
+        }
+        return System.nanoTime();
+    }
+
+    /**
+     * Leaves a site, just after its node has run, and charges it the time since it was
+     * entered.
+     * @param site the site
+     * @param start the time it was entered
+     */
+    void exit(Site site, long start)
+    {
+        long elapsed = System.nanoTime() - start;
+        depth--;
+        site.count++;
+        site.total += elapsed;
+        site.self += elapsed - childTime[depth];
+        if (depth > 0)
+            childTime[depth - 1] += elapsed;
+        if (site.getFrame() != null)
+        {
+            frameDepth--;
+            StringBuilder stack = new StringBuilder();
+            for (int i = 0; i <= frameDepth; i++)
+            {
+                if (i > 0)
+                    stack.append(';');
+                stack.append(frames[i]);
+            }
+            folded.merge(stack.toString(), elapsed - frameChildTime[frameDepth], Long::sum);
+            if (frameDepth > 0)
+                frameChildTime[frameDepth - 1] += elapsed;
+        }
+    }
+
+    /**
+     * Makes a table of the sites that ran, hottest first by self time.
+     * @return the report, one site per line
+     */
+    public String report()
+    {
+        List<Site> ran = new ArrayList<Site>();
+        for (Site site : sites)
+            if (site.getCount() > 0)
+                ran.add(site);
+        ran.sort((a, b) -> Long.compare(b.getSelf(), a.getSelf()));
+        StringBuilder out = new StringBuilder(String.format("%12s %12s %12s  %s%n",
+                "self us", "total us", "count", "node"));
+        for (Site site : ran)
+            out.append(String.format("%12d %12d %12d  %s%n", site.getSelf() / 1000,
+                    site.getTotal() / 1000, site.getCount(), site.getLabel()));
+        return out.toString();
+    }
+
+    /**
+     * Makes the folded stacks of the frames that ran, one "frame;frame;frame nanoseconds"
+     * line per stack, as read by flamegraph.pl and compatible tools.
+     * @return the folded stacks
+     */
+    public String foldedStacks()
+    {
+        StringBuilder out = new StringBuilder();
+        for (Map.Entry<String, Long> stack : folded.entrySet())
+            out.append(stack.getKey()).append(' ').append(stack.getValue()).append('\n');
+        return out.toString();
+    }
+
+    /**
+     * Instrumenter copies a Program with every node wrapped. Sites are labelled with the
+     * procedure they are in, their kind, their number in preorder within that procedure
+     * and a short detail such as a variable name or operator.
+     */
+    private class Instrumenter extends Rewriter
+    {
+        private String scope;
+        private int index;
+
+        /**
+         * Makes a site for a node.
+         * @param kind the kind of node
+         * @param detail a short description, or null
+         * @param frame the frame name, or null if the node is not a frame
+         * @return the site
+         */
+        private Site site(String kind, String detail, String frame)
+        {
+            String label = scope + ":" + kind + "#" + index++
+                    + (detail == null ? "" : " " + detail);
+            Site site = new Site(label, frame);
+            sites.add(site);
+            return site;
+        }
+
+        /**
+         * Instruments a procedure, whose body is also a frame.
+         * @param proc the procedure
+         * @return the instrumented procedure
+         */
+        protected ProcedureDeclaration procedure(ProcedureDeclaration proc)
+        {
+            scope = proc.getName();
+            index = 0;
+            Site site = site("Procedure", null, proc.getName());
+            Statement body = statement(proc.getStmt());
+            return copy(proc, new ProfiledStatement(body, site, Profiler.this));
+        }
+
+        /**
+         * Instruments the main statement, which is also a frame.
+         * @param stmt the main statement
+         * @return the instrumented statement
+         */
+        protected Statement main(Statement stmt)
+        {
+            scope = "main";
+            index = 0;
+            Site site = site("Program", null, "main");
+            return new ProfiledStatement(statement(stmt), site, Profiler.this);
+        }
+
+        /**
+         * Instruments a statement; a WHILE loop is also a frame.
+         * @param stmt the statement
+         * @return the instrumented statement
+         */
+        protected Statement statement(Statement stmt)
+        {
+            String kind = stmt.getClass().getSimpleName();
+            String detail = stmt instanceof Assignment
+                    ? ((Assignment) stmt).getVariable() + " :=" : null;
+            String frame = stmt instanceof While ? scope + ":while#" + index : null;
+            Site site = site(kind, detail, frame);
+            return new ProfiledStatement(super.statement(stmt), site, Profiler.this);
+        }
+
+        /**
+         * Instruments a condition.
+         * @param cond the condition
+         * @return the instrumented condition
+         */
+        protected Condition condition(Condition cond)
+        {
+            Site site = site("Condition", cond.getOperator(), null);
+            return new ProfiledCondition(super.condition(cond), site, Profiler.this);
+        }
+
+        /**
+         * Instruments an expression.
+         * @param exp the expression
+         * @return the instrumented expression
+         */
+        protected Expression expression(Expression exp)
+        {
+            if (exp instanceof Condition)
+                return condition((Condition) exp);
+            String detail = null;
+            if (exp instanceof Number)
+                detail = String.valueOf(((Number) exp).getValue());
+            else if (exp instanceof Variable)
+                detail = ((Variable) exp).getName();
+            else if (exp instanceof BinOp)
+                detail = ((BinOp) exp).getOperator();
+            else if (exp instanceof ProcedureCall)
+                detail = ((ProcedureCall) exp).getId();
+            Site site = site(exp.getClass().getSimpleName(), detail, null);
+            return new ProfiledExpression(super.expression(exp), site, Profiler.this);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package profile;
+
+/**
+ * A Site is one node of an instrumented Program and the time spent in it: how many times
+ * it ran, the nanoseconds from entering it to leaving it, and the part of those spent in
+ * the node itself rather than in the nodes under it. The total of a recursive procedure
+ * counts nested calls again; its self time does not.
+ *
+ * @author Montek Kalsi
+ * @version 10/17/26
+ */
+public class Site
+{
+    private final String label;
+    private final String frame;
+    long count;
+    long total;
+    long self;
+
+    /**
+     * Constructs a site.
+     * @param label the name of the node in reports
+     * @param frame the name of the node in folded stacks, or null if the node is not a
+     * procedure, loop or main program
+     */
+    Site(String label, String frame)
+    {
+        this.label = label;
+        this.frame = frame;
+    }
+
+    /**
+     * Outputs the name of the node in reports.
+     * @return the label
+     */
+    public String getLabel()
+    {
+        return label;
+    }
+
+    /**
+     * Outputs the name of the node in folded stacks.
+     * @return the frame name, or null if the node is not a frame
+     */
+    public String getFrame()
+    {
+        return frame;
+    }
+
+    /**
+     * Outputs the number of times the node ran.
+     * @return the count
+     */
+    public long getCount()
+    {
+        return count;
+    }
+
+    /**
+     * Outputs the nanoseconds spent in the node and everything under it.
+     * @return the total time
+     */
+    public long getTotal()
+    {
+        return total;
+    }
+
+    /**
+     * Outputs the nanoseconds spent in the node but not in the nodes under it.
+     * @return the self time
+     */
+    public long getSelf()
+    {
+        return self;
+    }
+}
@@ -0,0 +1,64 @@
+package scanner;
+
+/**
+ * Keywords recognizes the reserved words of the language with a perfect hash. The hash
+ * of a word is (first character + 7 * last character + length) mod 32, which gives every
+ * keyword its own slot, so a lookup is one table read and one comparison.
+ *
+ * @author Montek Kalsi
+ * @version 10/17/26
+ */
+public class Keywords
+{
+    private static final Token[] TABLE = new Token[32];
+
+    static
+    {
+        String[] words = {"BEGIN", "END", "WHILE", "DO", "IF", "THEN", "VAR", "PROCEDURE",
+                "WRITELN", "mod"};
+        TokenType[] kinds = {TokenType.BEGIN, TokenType.END, TokenType.WHILE, TokenType.DO,
+                TokenType.IF, TokenType.THEN, TokenType.VAR, TokenType.PROCEDURE,
+                TokenType.WRITELN, TokenType.MOD};
+        for (int i = 0; i < words.length; i++)
+        {
+            String w = words[i];
+            int h = hash(w.charAt(0), w.charAt(w.length() - 1), w.length());
+            if (TABLE[h] != null)
+                throw new IllegalStateException(w + " collides with " + TABLE[h]);
+            TABLE[h] = new Token(kinds[i], w, 0);
+        }
+    }
+
+    /**
+     * Finds the keyword spelled by buf[start, start + length).
+     * @param buf the buffer holding the word
+     * @param start the index of the first character of the word
+     * @param length the number of characters in the word
+     * @return the keyword token, or null if the word is not a keyword
+     */
+    public static Token lookup(char[] buf, int start, int length)
+    {
+        Token t = TABLE[hash(buf[start], buf[start + length - 1], length)];
+        if (t == null)
+            return null;
+        String text = t.getText();
+        if (text.length() != length)
+            return null;
+        for (int i = 0; i < length; i++)
+            if (text.charAt(i) != buf[start + i])
+                return null;
+        return t;
+    }
+
+    /**
+     * The perfect hash of a word.
+     * @param first the first character of the word
+     * @param last the last character of the word
+     * @param length the number of characters in the word
+     * @return a slot in the keyword table
+     */
+    private static int hash(char first, char last, int length)
+    {
+        return (first + 7 * last + length) & 31;
+    }
+}
@@ -0,0 +1,110 @@
+package scanner;
+
+/**
+ * NameTable interns identifier tokens by their characters. Lookups take a
+ * slice of the scanner's buffer, so a name that has been seen before is found without
+ * creating a String; only the first occurrence of a name allocates its Token.
+ *
+ * @author Montek Kalsi
+ * @version 10/17/26
+ */
+public class NameTable
+{
+    private Token[] slots;
+    private int[] hashes;
+    private int size;
+
+    /**
+     * Constructs an empty name table.
+     */
+    public NameTable()
+    {
+        slots = new Token[64];
+        hashes = new int[64];
+        size = 0;
+    }
+
+    /**
+     * Finds the token for the name in buf[start, start + length), creating and
+     * remembering an IDENTIFIER token if the name has not been seen before.
+     * @param buf the buffer holding the name
+     * @param start the index of the first character of the name
+     * @param length the number of characters in the name
+     * @return the shared token for the name
+     */
+    public Token lookup(char[] buf, int start, int length)
+    {
+        int h = hash(buf, start, length);
+        int mask = slots.length - 1;
+        int i = h & mask;
+        while (slots[i] != null)
+        {
+            if (hashes[i] == h && matches(slots[i].getText(), buf, start, length))
+                return slots[i];
+            i = (i + 1) & mask;
+        }
+        Token t = new Token(TokenType.IDENTIFIER, new String(buf, start, length).intern(), 0);
+        insert(t, h);
+        return t;
+    }
+
+    /**
+     * Adds a token to the table, doubling the table when it is half full.
+     * @param t the token added
+     * @param h the hash of the token's text
+     */
+    private void insert(Token t, int h)
+    {
+        if (2 * (size + 1) > slots.length)
+        {
+            Token[] oldSlots = slots;
+            int[] oldHashes = hashes;
+            slots = new Token[oldSlots.length * 2];
+            hashes = new int[oldSlots.length * 2];
+            size = 0;
+            for (int j = 0; j < oldSlots.length; j++)
+                if (oldSlots[j] != null)
+                    insert(oldSlots[j], oldHashes[j]);
+        }
+        int mask = slots.length - 1;
+        int i = h & mask;
+        while (slots[i] != null)
+            i = (i + 1) & mask;
+        slots[i] = t;
+        hashes[i] = h;
+        size++;
+    }
+
+    /**
+     * Hashes a slice of characters.
+     * @param buf the buffer holding the characters
+     * @param start the index of the first character
+     * @param length the number of characters
+     * @return the hash of the slice
+     */
+    private static int hash(char[] buf, int start, int length)
+    {
+        int h = 0;
+        for (int i = start; i < start + length; i++)
+            h = 31 * h + buf[i];
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Compares a String with a slice of characters.
+     * @param s the String
+     * @param buf the buffer holding the slice
+     * @param start the index of the first character of the slice
+     * @param length the number of characters in the slice
+     * @return true if s has exactly the characters of the slice
+     */
+    private static boolean matches(String s, char[] buf, int start, int length)
+    {
+        if (s.length() != length)
+            return false;
+        for (int i = 0; i < length; i++)
+            if (s.charAt(i) != buf[start + i])
+                return false;
+        return true;
+    }
+}
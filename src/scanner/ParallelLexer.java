@@ -0,0 +1,188 @@
+package scanner;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * ParallelLexer lexes a large source on a ForkJoinPool. A token never contains
+ * whitespace, so any whitespace character is a safe place to split the source. The source
+ * is split in halves at the whitespace nearest to the middle until the pieces are small,
+ * each piece is lexed by its own Scanner over the shared buffer, and the token arrays of
+ * the pieces are joined in order into a single TokenArray for the Parser.
+ *
+ * @author Montek Kalsi
+ * @version 10/17/26
+ */
+public class ParallelLexer
+{
+    // pieces shorter than this are lexed on a single thread
+    private static final int CHUNK = 1 << 16;
+
+    /**
+     * Lexes a source on the common ForkJoinPool.
+     * @param buf the characters of the source
+     * @return the tokens of the source
+     * @throws ScanErrorException if the source contains an illegal character
+     */
+    public static TokenArray lex(char[] buf) throws ScanErrorException
+    {
+        return lex(buf, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Lexes a source on the given pool. Everything from the first period on is ignored,
+     * just as the Scanner stops at the first period.
+     * @param buf the characters of the source
+     * @param pool the pool that lexes the pieces
+     * @return the tokens of the source
+     * @throws ScanErrorException if the source contains an illegal character
+     */
+    public static TokenArray lex(char[] buf, ForkJoinPool pool) throws ScanErrorException
+    {
+        int end = 0;
+        while (end < buf.length && buf[end] != '.')
+            end++;
+        try
+        {
+            Piece all = pool.invoke(new LexTask(buf, 0, end));
+            return new TokenArray(all.tokens, all.size);
+        }
+        catch (LexFailure e)
+        {
+            throw e.cause;
+        }
+    }
+
+    /**
+     * Finds a whitespace character in buf[from, to), searching outward from the middle.
+     * @param buf the characters of the source
+     * @param from the first index searched
+     * @param to one past the last index searched
+     * @return the index of the whitespace character, or -1 if there is none
+     */
+    private static int split(char[] buf, int from, int to)
+    {
+        int mid = (from + to) >>> 1;
+        for (int d = 0; mid + d < to || mid - d >= from; d++)
+        {
+            if (mid + d < to && Scanner.isWhitespace(buf[mid + d]))
+                return mid + d;
+            if (mid - d >= from && Scanner.isWhitespace(buf[mid - d]))
+                return mid - d;
+        }
+        return -1;
+    }
+
+    /**
+     * The tokens lexed from one piece of the source.
+     */
+    private static class Piece
+    {
+        private Token[] tokens;
+        private int size;
+
+        /**
+         * Constructs a piece.
+         * @param tokens the tokens of the piece
+         * @param size the number of tokens in use
+         */
+        private Piece(Token[] tokens, int size)
+        {
+            this.tokens = tokens;
+            this.size = size;
+        }
+    }
+
+    /**
+     * Carries a ScanErrorException out of a ForkJoin task.
+     */
+    private static class LexFailure extends RuntimeException
+    {
+        private static final long serialVersionUID = 1L;
+
+        private ScanErrorException cause;
+
+        /**
+         * Constructs a failure wrapping a scan error.
+         * @param cause the scan error
+         */
+        private LexFailure(ScanErrorException cause)
+        {
+            super(cause);
+            this.cause = cause;
+        }
+    }
+
+    /**
+     * Lexes buf[from, to), splitting it further while it is large.
+     */
+    private static class LexTask extends RecursiveTask<Piece>
+    {
+        private static final long serialVersionUID = 1L;
+
+        private char[] buf;
+        private int from;
+        private int to;
+
+        /**
+         * Constructs a task for one range of the source.
+         * @param buf the characters of the source
+         * @param from the first index of the range
+         * @param to one past the last index of the range
+         */
+        private LexTask(char[] buf, int from, int to)
+        {
+            this.buf = buf;
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+         * Lexes the range, in two forked halves when it is large.
+         * @return the tokens of the range
+         */
+        protected Piece compute()
+        {
+            int at = to - from > CHUNK ? split(buf, from, to) : -1;
+            if (at < 0)
+                return lexRange();
+            LexTask right = new LexTask(buf, at + 1, to);
+            right.fork();
+            Piece left = new LexTask(buf, from, at).compute();
+            Piece rest = right.join();
+            Token[] joined = new Token[left.size + rest.size];
+            System.arraycopy(left.tokens, 0, joined, 0, left.size);
+            System.arraycopy(rest.tokens, 0, joined, left.size, rest.size);
+            return new Piece(joined, joined.length);
+        }
+
+        /**
+         * Lexes the range with a single Scanner.
+         * @return the tokens of the range
+         */
+        private Piece lexRange()
+        {
+            Scanner scanner = new Scanner(buf, from, to - from);
+            Token[] tokens = new Token[Math.max(16, (to - from) / 4)];
+            int size = 0;
+            try
+            {
+                for (Token t = scanner.next(); t.getKind() != TokenType.EOF; t = scanner.next())
+                {
+                    if (size == tokens.length)
+                    {
+                        Token[] grown = new Token[size * 2];
+                        System.arraycopy(tokens, 0, grown, 0, size);
+                        tokens = grown;
+                    }
+                    tokens[size++] = t;
+                }
+            }
+            catch (ScanErrorException e)
+            {
+                throw new LexFailure(e);
+            }
+            return new Piece(tokens, size);
+        }
+    }
+}
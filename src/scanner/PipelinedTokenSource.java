@@ -0,0 +1,148 @@
+package scanner;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * PipelinedTokenSource runs a Scanner on its own thread so that reading and lexing the
+ * source overlap with parsing. The lexer thread is the single producer and the parser
+ * the single consumer of a bounded, lock-free ring of tokens: each side only writes its
+ * own counter and publishes it with an ordered store, so neither takes a lock.
+ *
+ * Usage:
+ * PipelinedTokenSource tokens = new PipelinedTokenSource(Scanner.fromFile(file), 1024);
+ * Program p = new Parser(tokens).parseProgram();
+ * tokens.close();
+ *
+ * @author Montek Kalsi
+ * @version 10/17/26
+ */
+public class PipelinedTokenSource implements TokenSource, AutoCloseable
+{
+    // published in place of a token when the scanner throws anything
+    private static final Token FAILED = new Token(TokenType.EOF, "FAILED", 0);
+
+    // spins before a waiting side starts parking
+    private static final int SPINS = 256;
+
+    private final Token[] ring;
+    private final int mask;
+
+    // the number of tokens written by the lexer thread
+    private final AtomicLong tail = new AtomicLong();
+
+    // the number of tokens read by the parser
+    private final AtomicLong head = new AtomicLong();
+
+    private final Thread lexer;
+    private volatile boolean closed;
+    private volatile Throwable failure;
+    private boolean finished;
+
+    /**
+     * Starts lexing the scanner's input on a new daemon thread.
+     * @param scanner the scanner producing the tokens
+     * @param capacity the minimum number of tokens the ring holds; rounded up to a power of 2
+     */
+    public PipelinedTokenSource(Scanner scanner, int capacity)
+    {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        ring = new Token[size];
+        mask = size - 1;
+        lexer = new Thread(() -> produce(scanner), "lexer");
+        lexer.setDaemon(true);
+        lexer.start();
+    }
+
+    /**
+     * The body of the lexer thread. It writes tokens into the ring until the end of the
+     * file, a failure of the scanner, or close.
+     * @param scanner the scanner producing the tokens
+     */
+    private void produce(Scanner scanner)
+    {
+        long t = 0;
+        Token token;
+        do
+        {
+            try
+            {
+                token = scanner.next();
+            }
+            catch (ScanErrorException | RuntimeException | Error e)
+            {
+                failure = e;
+                token = FAILED;
+            }
+            int spins = 0;
+            while (t - head.get() == ring.length)
+            {
+                if (closed)
+                    return;
+                spins = backOff(spins);
+            }
+            ring[(int) t & mask] = token;
+            t++;
+            tail.lazySet(t);
+        }
+        while (token.getKind() != TokenType.EOF && !closed);
+    }
+
+    /**
+     * Returns the next token lexed by the lexer thread, waiting for it if the ring is
+     * empty.
+     * @return the next token, or Token.EOF once the program is exhausted
+     * @throws ScanErrorException if the lexer thread hit an illegal character
+     * @throws RuntimeException if the scanner failed with an unchecked exception, which is
+     *         rethrown here
+     */
+    public Token next() throws ScanErrorException
+    {
+        if (finished)
+            return Token.EOF;
+        long h = head.get();
+        int spins = 0;
+        while (h == tail.get())
+            spins = backOff(spins);
+        int index = (int) h & mask;
+        Token token = ring[index];
+        ring[index] = null;
+        head.lazySet(h + 1);
+        if (token == FAILED)
+        {
+            finished = true;
+            if (failure instanceof ScanErrorException)
+                throw (ScanErrorException) failure;
+            if (failure instanceof Error)
+                throw (Error) failure;
+            throw (RuntimeException) failure;
+        }
+        if (token.getKind() == TokenType.EOF)
+            finished = true;
+        return token;
+    }
+
+    /**
+     * Waits a little for the other side of the ring: spins first and then parks briefly.
+     * @param spins the number of times the caller has already waited
+     * @return the updated number of waits
+     */
+    private static int backOff(int spins)
+    {
+        if (spins < SPINS)
+            Thread.onSpinWait();
+        else
+            LockSupport.parkNanos(10_000);
+        return spins + 1;
+    }
+
+    /**
+     * Stops the lexer thread if it is still running, for example when parsing failed
+     * before the end of the file.
+     */
+    public void close()
+    {
+        closed = true;
+        finished = true;
+    }
+}
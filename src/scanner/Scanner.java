@@ -1,6 +1,10 @@
 package scanner;
 
 import java.io.*;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 
 /**
  * scanner.scanner is a simple scanner for Compilers and Interpreters (2014-2015) lab exercise 1
@@ -10,21 +14,135 @@ import java.io.*;
  * Usage:
  * The scanner.scanner object acts as an input reader, determining the lexemes in
  * given input strings, and outputting a string of tokens for a parser.
+ *
+ * The whole source is held in a single char array and every lexeme is recorded as an
+ * offset/length slice of that array. Text is only copied out of the buffer when a caller
+ * asks for it through nextToken or getTokenText.
  */
-public class Scanner
+public class Scanner implements TokenSource
 {
-    // the input stream of characters
-    private BufferedReader in;
+    // character classes used by the transition table
+    private static final int C_OTHER = 0;
+    private static final int C_SPACE = 1;
+    private static final int C_DIGIT = 2;
+    private static final int C_LETTER = 3;
+    private static final int C_OPERATOR = 4;
+    private static final int C_COLON = 5;
+    private static final int C_LESS = 6;
+    private static final int C_GREATER = 7;
+    private static final int C_EQUAL = 8;
+    private static final int C_DOT = 9;
+    private static final int C_END = 10;
+    private static final int CLASSES = 11;
 
-    // the character currently being examined
-    private char currentChar;
+    // states of the lexer; a token is accepted once a transition leaves them
+    private static final int S_START = 0;
+    private static final int S_NUMBER = 1;
+    private static final int S_IDENTIFIER = 2;
+    private static final int S_COLON = 3;
+    private static final int S_LESS = 4;
+    private static final int S_GREATER = 5;
+    private static final int STATES = 6;
+
+    // transition results that are not states
+    private static final int ACCEPT = -1;
+    private static final int ACCEPT_WITH = -2;
+    private static final int ERROR = -3;
+    private static final int FINISHED = -4;
+
+    // the class of every ASCII character; anything else is C_OTHER
+    private static final byte[] CHAR_CLASS = new byte[128];
+
+    // the next state for each (state, class) pair, indexed by state * CLASSES + class
+    private static final int[] TRANSITIONS = new int[STATES * CLASSES];
+
+    // shared single-character operator tokens, indexed by character
+    private static final Token[] OPERATORS = new Token[128];
+
+    // shared two-character operator tokens
+    private static final Token ASSIGN = new Token(TokenType.ASSIGN, ":=", 0);
+    private static final Token LESS_EQUAL = new Token(TokenType.LESS_EQUAL, "<=", 0);
+    private static final Token GREATER_EQUAL = new Token(TokenType.GREATER_EQUAL, ">=", 0);
+    private static final Token NOT_EQUAL = new Token(TokenType.NOT_EQUAL, "<>", 0);
+
+    static
+    {
+        char[] chars = {'+','-','*','/','%','=','(',')','.',':',';','>','<', '$', '^', '@', ','};
+        TokenType[] kinds = {TokenType.PLUS, TokenType.MINUS, TokenType.TIMES,
+                TokenType.DIVIDE, TokenType.PERCENT, TokenType.EQUAL, TokenType.LPAREN,
+                TokenType.RPAREN, TokenType.DOT, TokenType.COLON, TokenType.SEMICOLON,
+                TokenType.GREATER, TokenType.LESS, TokenType.DOLLAR, TokenType.CARET,
+                TokenType.AT, TokenType.COMMA};
+        for (int i = 0; i < chars.length; i++)
+        {
+            OPERATORS[chars[i]] = new Token(kinds[i], String.valueOf(chars[i]), 0);
+            CHAR_CLASS[chars[i]] = C_OPERATOR;
+        }
+        CHAR_CLASS[':'] = C_COLON;
+        CHAR_CLASS['<'] = C_LESS;
+        CHAR_CLASS['>'] = C_GREATER;
+        CHAR_CLASS['='] = C_EQUAL;
+        CHAR_CLASS['.'] = C_DOT;
+        CHAR_CLASS[' '] = C_SPACE;
+        CHAR_CLASS['\n'] = C_SPACE;
+        CHAR_CLASS['\r'] = C_SPACE;
+        CHAR_CLASS['\t'] = C_SPACE;
+        for (char c = '0'; c <= '9'; c++)
+            CHAR_CLASS[c] = C_DIGIT;
+        for (char c = 'a'; c <= 'z'; c++)
+        {
+            CHAR_CLASS[c] = C_LETTER;
+            CHAR_CLASS[c - 'a' + 'A'] = C_LETTER;
+        }
+
+        java.util.Arrays.fill(TRANSITIONS, ACCEPT);
+        int start = S_START * CLASSES;
+        TRANSITIONS[start + C_OTHER] = ERROR;
+        TRANSITIONS[start + C_SPACE] = S_START;
+        TRANSITIONS[start + C_DIGIT] = S_NUMBER;
+        TRANSITIONS[start + C_LETTER] = S_IDENTIFIER;
+        TRANSITIONS[start + C_OPERATOR] = ACCEPT_WITH;
+        TRANSITIONS[start + C_COLON] = S_COLON;
+        TRANSITIONS[start + C_LESS] = S_LESS;
+        TRANSITIONS[start + C_GREATER] = S_GREATER;
+        TRANSITIONS[start + C_EQUAL] = ACCEPT_WITH;
+        TRANSITIONS[start + C_DOT] = FINISHED;
+        TRANSITIONS[start + C_END] = FINISHED;
+        TRANSITIONS[S_NUMBER * CLASSES + C_DIGIT] = S_NUMBER;
+        TRANSITIONS[S_IDENTIFIER * CLASSES + C_DIGIT] = S_IDENTIFIER;
+        TRANSITIONS[S_IDENTIFIER * CLASSES + C_LETTER] = S_IDENTIFIER;
+        TRANSITIONS[S_COLON * CLASSES + C_EQUAL] = ACCEPT_WITH;
+        TRANSITIONS[S_LESS * CLASSES + C_EQUAL] = ACCEPT_WITH;
+        TRANSITIONS[S_LESS * CLASSES + C_GREATER] = ACCEPT_WITH;
+        TRANSITIONS[S_GREATER * CLASSES + C_EQUAL] = ACCEPT_WITH;
+    }
+
+    // the characters of the source being scanned
+    private char[] buf;
+
+    // index of the next character to be examined
+    private int pos;
+
+    // index one past the last character that may be scanned
+    private int limit;
 
     // determines whether the input stream has reached the end of the file
     private boolean eof;
 
+    // offset and length in buf of the most recently scanned lexeme
+    private int tokenStart;
+    private int tokenLength;
+
+    // the state the lexer was in when it accepted the most recent lexeme
+    private int tokenState;
+
+    // interned identifier tokens seen by this scanner
+    private NameTable names = new NameTable();
+
     /**
      * scanner.scanner constructor for construction of a scanner that
-     * uses an InputStream object for input.  
+     * uses an InputStream object for input. The stream is read fully into memory
+     * before scanning starts.
      * Usage: 
      * FileInputStream inStream = new FileInputStream(new File(<file name>);
      * scanner.scanner lex = new scanner.scanner(inStream);
@@ -32,69 +150,110 @@ public class Scanner
      */
     public Scanner(InputStream inStream)
     {
-        in = new BufferedReader(new InputStreamReader(inStream));
-        eof = false;
-        getNextChar();
+        this(readFully(new InputStreamReader(inStream)));
     }
+
     /**
      * scanner.scanner constructor for constructing a scanner that
-     * scans a given input string.  It sets the end-of-file flag an then reads
-     * the first character of the input string into the instance field currentChar.
+     * scans a given input string.
      * Usage: scanner.scanner lex = new scanner.scanner(input_string);
      * @param inString the string to scan
      */
     public Scanner(String inString)
     {
-        in = new BufferedReader(new StringReader(inString));
-        eof = false;
-        getNextChar();
+        this(inString.toCharArray());
     }
 
     /**
-     * Sets instance field currentChar to the value read from the input stream using the read method.
-     * If -1 is returned, the stream is at the end of the file, changing eof to true.
-     * If an IO exception is thrown, the system exits with status 1.
+     * Constructs a scanner over an entire char array without copying it.
+     * @param buffer the characters to scan
      */
-    private void getNextChar()
+    public Scanner(char[] buffer)
     {
-        int n = 0;
-        try
-        {
-            n = in.read();
-        }
-        catch (IOException e)
-        {
-            System.exit(-1);
-            e.printStackTrace();
-        }
-        if (n == -1)
-            eof=true;
-        else
+        this(buffer, 0, buffer.length);
+    }
+
+    /**
+     * Constructs a scanner over the range [offset, offset + length) of a char array
+     * without copying it. Lexeme slices reported by the scanner are offsets into buffer.
+     * @param buffer the characters to scan
+     * @param offset the index of the first character to scan
+     * @param length the number of characters to scan
+     */
+    public Scanner(char[] buffer, int offset, int length)
+    {
+        buf = buffer;
+        pos = offset;
+        limit = offset + length;
+        eof = pos >= limit || buf[pos] == '.';
+    }
+
+    /**
+     * Constructs a scanner over a source file. The file is memory-mapped and decoded
+     * as UTF-8 in one pass straight into the scanner's buffer.
+     * @param file the source file to scan
+     * @return a scanner over the contents of file
+     * @throws IOException if the file cannot be mapped
+     */
+    public static Scanner fromFile(File file) throws IOException
+    {
+        return new Scanner(loadFile(file));
+    }
+
+    /**
+     * Memory-maps a source file and decodes it as UTF-8 into a char array.
+     * @param file the source file to load
+     * @return the characters of the file
+     * @throws IOException if the file cannot be mapped
+     */
+    public static char[] loadFile(File file) throws IOException
+    {
+        try (FileChannel channel = new FileInputStream(file).getChannel())
         {
-            currentChar = (char) (n);
-            if (currentChar == '.')
-                eof = true;
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                    channel.size());
+            CharBuffer chars = StandardCharsets.UTF_8.decode(mapped);
+            if (chars.hasArray() && chars.arrayOffset() == 0
+                    && chars.array().length == chars.remaining())
+                return chars.array();
+            char[] out = new char[chars.remaining()];
+            chars.get(out);
+            return out;
         }
     }
 
     /**
-     * eat takes in the expected character, comparing it against the current one. If equivalent,
-     * the IO stream advances to the next character; otherwise, a scanner.ScanErrorException is thrown
-     * with the strings included in the reason.
-     *
-     * @param expected   the character compared with currentChar
+     * Reads every character of a reader into a single array.
+     * If an IO exception is thrown, the system exits with status 1.
+     * @param reader the reader to drain
+     * @return the characters read
      */
-    private void eat(char expected) throws ScanErrorException
+    private static char[] readFully(Reader reader)
     {
-        if (expected==currentChar)
+        char[] out = new char[8192];
+        int size = 0;
+        try
         {
-            getNextChar();
+            int n;
+            while ((n = reader.read(out, size, out.length - size)) != -1)
+            {
+                size += n;
+                if (size == out.length)
+                {
+                    char[] grown = new char[out.length * 2];
+                    System.arraycopy(out, 0, grown, 0, size);
+                    out = grown;
+                }
+            }
         }
-        else
+        catch (IOException e)
         {
-            String s = "Illegal character. Expected " + currentChar + " and found " + expected;
-            throw(new ScanErrorException(s));
+            e.printStackTrace();
+            System.exit(-1);
         }
+        char[] exact = new char[size];
+        System.arraycopy(out, 0, exact, 0, size);
+        return exact;
     }
 
     /**
@@ -109,139 +268,195 @@ public class Scanner
     }
 
     /**
-     * Based on the type of currentChar, either a number, identifier, or operand
-     * is scanned.
+     * Scans the next lexeme and returns its text.
      *
      * @return the next token as a String
      */
     public String nextToken() throws ScanErrorException
     {
-        if (eof)
+        if (!advance())
             return "END";
-        while(hasNext() && isWhitespace(currentChar))
+        return getTokenText();
+    }
+
+    /**
+     * Scans the next lexeme and returns it as a typed token. Keywords, operators and
+     * identifiers are shared tokens; only numbers allocate a new token.
+     *
+     * @return the next token, or Token.EOF at the end of the file
+     * @throws ScanErrorException if an illegal character is found
+     */
+    public Token next() throws ScanErrorException
+    {
+        if (!advance())
+            return Token.EOF;
+        switch (tokenState)
         {
-            eat(currentChar);
+            case S_NUMBER:
+                return new Token(TokenType.NUMBER, getTokenText(), numberValue());
+            case S_IDENTIFIER:
+            {
+                Token keyword = Keywords.lookup(buf, tokenStart, tokenLength);
+                if (keyword != null)
+                    return keyword;
+                return names.lookup(buf, tokenStart, tokenLength);
+            }
+            case S_COLON:
+                return tokenLength == 2 ? ASSIGN : OPERATORS[':'];
+            case S_LESS:
+                if (tokenLength == 1)
+                    return OPERATORS['<'];
+                return buf[tokenStart + 1] == '=' ? LESS_EQUAL : NOT_EQUAL;
+            case S_GREATER:
+                return tokenLength == 2 ? GREATER_EQUAL : OPERATORS['>'];
+            default:
+                return OPERATORS[buf[tokenStart]];
         }
-        if(isDigit(currentChar))
+    }
+
+    /**
+     * Computes the value of the number lexeme that was just scanned.
+     * @return the value of the number
+     * @throws ScanErrorException if the number does not fit in an int
+     */
+    private int numberValue() throws ScanErrorException
+    {
+        long value = 0;
+        for (int i = tokenStart; i < tokenStart + tokenLength; i++)
         {
-            return scanNumber();
+            value = value * 10 + (buf[i] - '0');
+            if (value > Integer.MAX_VALUE)
+                throw new ScanErrorException(getTokenText() + " is too large");
         }
-        if(isLetter(currentChar))
+        return (int) value;
+    }
+
+    /**
+     * Scans the next lexeme and records it as a slice of the buffer without copying any
+     * characters. The slice can be read with getTokenStart and getTokenLength.
+     * Each character is mapped to its class and the transition table gives the next
+     * state, until a transition accepts the lexeme. A period or the end of the buffer
+     * ends the file.
+     *
+     * @return false if the end of the file was reached before another lexeme
+     * @throws ScanErrorException if an illegal character is found
+     */
+    public boolean advance() throws ScanErrorException
+    {
+        if (eof)
+            return false;
+        char[] b = buf;
+        int p = pos;
+        int start = p;
+        int state = S_START;
+        while (true)
         {
-            return scanIdentifier();
+            int cls;
+            if (p >= limit)
+                cls = C_END;
+            else
+            {
+                char c = b[p];
+                cls = c < 128 ? CHAR_CLASS[c] : C_OTHER;
+            }
+            int next = TRANSITIONS[state * CLASSES + cls];
+            if (next >= 0)
+            {
+                p++;
+                if (next == S_START)
+                    start = p;
+                state = next;
+                continue;
+            }
+            if (next == ACCEPT_WITH)
+                p++;
+            else if (next == ERROR)
+            {
+                pos = p + 1;
+                throw new ScanErrorException(b[p] + " caused an exception");
+            }
+            else if (next == FINISHED)
+            {
+                pos = p;
+                eof = true;
+                return false;
+            }
+            break;
         }
-        return scanOperand();
+        pos = p;
+        tokenStart = start;
+        tokenLength = p - start;
+        tokenState = state;
+        eof = p >= limit || b[p] == '.';
+        return true;
     }
 
     /**
-     * Checks whether d is a character defined by regular expression 0-9.
-     *
-     * @param d the input character checked
-     * @return true if d falls within the range 0-9
+     * Outputs the buffer that lexeme slices index into.
+     * @return the scanned characters
      */
-    public static boolean isDigit(char d)
+    public char[] getBuffer()
     {
-        return (d >= '0' && d <= '9');
+        return buf;
     }
 
     /**
-     * Determines whether l is within regular expression a-z or A-Z.
-     *
-     * @param l the character being examined
-     * @return true if l falls within the regular expression
+     * Outputs the offset of the most recently scanned lexeme.
+     * @return the index of its first character in the buffer
      */
-    public static boolean isLetter(char l)
+    public int getTokenStart()
     {
-        return ((l >= 'a' && l <= 'z') || (l >= 'A' && l <= 'Z'));
+        return tokenStart;
     }
 
     /**
-     * Validates if c is whitespace.
-     *
-     * @param c the character being examined
-     * @return true if c is whitespace
+     * Outputs the length of the most recently scanned lexeme.
+     * @return the number of characters in the lexeme
      */
-    public static boolean isWhitespace(char c)
+    public int getTokenLength()
+    {
+        return tokenLength;
+    }
+
+    /**
+     * Copies the most recently scanned lexeme out of the buffer.
+     * @return the lexeme as a String
+     */
+    public String getTokenText()
     {
-        return (c == ' ' || c == '\n' || c == '\r' || c == '\t');
+        return new String(buf, tokenStart, tokenLength);
     }
 
     /**
-     * If the character in the input stream begins a number token,
-     * the characters following are concatenated into an output String returned
-     * as the found lexeme.
+     * Checks whether d is a character defined by regular expression 0-9.
      *
-     * @return the lexeme of a number
-     * @throws ScanErrorException if a lexeme isn't found
+     * @param d the input character checked
+     * @return true if d falls within the range 0-9
      */
-    private String scanNumber() throws ScanErrorException
+    public static boolean isDigit(char d)
     {
-        if (!isDigit(currentChar))
-        {
-            throw (new ScanErrorException("No number is found"));
-        }
-        String num = "";
-        while (hasNext() && isDigit(currentChar))
-        {
-            num += currentChar;
-            eat(currentChar);
-        }
-        return num;
+        return d < 128 && CHAR_CLASS[d] == C_DIGIT;
     }
 
     /**
-     * Continues along the input stream while concatenating characters in
-     * an output String that compose an identifier.
+     * Determines whether l is within regular expression a-z or A-Z.
      *
-     * @return the lexeme of an identifier
-     * @throws ScanErrorException if a lexeme isn't found
+     * @param l the character being examined
+     * @return true if l falls within the regular expression
      */
-    private String scanIdentifier() throws ScanErrorException
+    public static boolean isLetter(char l)
     {
-        if (!isLetter(currentChar))
-        {
-            throw (new ScanErrorException("No identifier is found"));
-        }
-        String identifier="";
-        while(hasNext() && (isLetter(currentChar) || isDigit(currentChar)))
-        {
-            identifier+=currentChar;
-            eat(currentChar);
-        }
-        return identifier;
+        return l < 128 && CHAR_CLASS[l] == C_LETTER;
     }
 
     /**
-     * Determines if currentChar matches with any of the valid operands.
-     * If so, it is returned.
+     * Validates if c is whitespace.
      *
-     * @return the string of the operand token
-     * @throws ScanErrorException if no operand is found
+     * @param c the character being examined
+     * @return true if c is whitespace
      */
-    private String scanOperand() throws ScanErrorException
+    public static boolean isWhitespace(char c)
     {
-        char[] operands = {'+','-','*','/','%','=','(',')','.',':',';','>','<', '$', '^', '@', ','};
-        int ind=0;
-        while(ind < operands.length && currentChar!=operands[ind])
-        {
-            ind++;
-        }
-        //if (currentChar!=operands[ind])
-        char c = currentChar;
-        eat(currentChar);
-        if (!eof && ind>=operands.length)
-        {
-            throw (new ScanErrorException(c + " caused an exception"));
-        }
-        String operand="";
-        if ((c=='<' || c=='>' || c==':' || c=='=') && (currentChar=='=' || currentChar=='>' || currentChar=='<'))
-        {
-            operand = "" + c + currentChar;
-            eat(currentChar);
-        }
-        else
-            operand=""+c;
-        return operand;
-        //return String.valueOf(c);
+        return c < 128 && CHAR_CLASS[c] == C_SPACE;
     }
 }
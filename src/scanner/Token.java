@@ -0,0 +1,71 @@
+package scanner;
+
+/**
+ * A Token is a single lexeme produced by the scanner. It carries its kind, its text,
+ * and for numbers the already parsed int value. Keyword, operator and identifier tokens
+ * are shared, so identifier names are interned and two tokens for the same name are the
+ * same object.
+ *
+ * @author Montek Kalsi
+ * @version 10/17/26
+ */
+public class Token
+{
+    /**
+     * The token returned once the scanner has reached the end of the file.
+     */
+    public static final Token EOF = new Token(TokenType.EOF, "END", 0);
+
+    private TokenType kind;
+    private String text;
+    private int value;
+
+    /**
+     * Constructs a token.
+     * @param kind the kind of the token
+     * @param text the lexeme of the token
+     * @param value the numeric value of a NUMBER token, 0 otherwise
+     */
+    public Token(TokenType kind, String text, int value)
+    {
+        this.kind = kind;
+        this.text = text;
+        this.value = value;
+    }
+
+    /**
+     * Outputs the kind of the token.
+     * @return the kind
+     */
+    public TokenType getKind()
+    {
+        return kind;
+    }
+
+    /**
+     * Outputs the lexeme of the token. For identifiers this is an interned name.
+     * @return the text of the token
+     */
+    public String getText()
+    {
+        return text;
+    }
+
+    /**
+     * Outputs the value of a NUMBER token.
+     * @return the parsed int value
+     */
+    public int getValue()
+    {
+        return value;
+    }
+
+    /**
+     * Outputs the lexeme of the token.
+     * @return the text of the token
+     */
+    public String toString()
+    {
+        return text;
+    }
+}
@@ -0,0 +1,47 @@
+package scanner;
+
+/**
+ * A TokenArray is a token source over tokens that have already been lexed into an array.
+ * It always ends with Token.EOF, however often next is called.
+ *
+ * @author Montek Kalsi
+ * @version 10/17/26
+ */
+public class TokenArray implements TokenSource
+{
+    private Token[] tokens;
+    private int size;
+    private int index;
+
+    /**
+     * Constructs a source over the first size tokens of an array.
+     * @param tokens the lexed tokens, not including Token.EOF
+     * @param size the number of tokens in use
+     */
+    public TokenArray(Token[] tokens, int size)
+    {
+        this.tokens = tokens;
+        this.size = size;
+        index = 0;
+    }
+
+    /**
+     * Returns the next token in the array.
+     * @return the next token, or Token.EOF once the array is exhausted
+     */
+    public Token next()
+    {
+        if (index < size)
+            return tokens[index++];
+        return Token.EOF;
+    }
+
+    /**
+     * Outputs the number of tokens in the array, not counting Token.EOF.
+     * @return the number of tokens
+     */
+    public int size()
+    {
+        return size;
+    }
+}
@@ -0,0 +1,19 @@
+package scanner;
+
+/**
+ * A TokenSource hands out the tokens of a program one at a time, ending with Token.EOF.
+ * The Scanner is the basic source; other sources feed the Parser with tokens lexed
+ * elsewhere, such as on another thread.
+ *
+ * @author Montek Kalsi
+ * @version 10/17/26
+ */
+public interface TokenSource
+{
+    /**
+     * Returns the next token of the program.
+     * @return the next token, or Token.EOF once the program is exhausted
+     * @throws ScanErrorException if the program contains an illegal character
+     */
+    Token next() throws ScanErrorException;
+}
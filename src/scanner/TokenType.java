@@ -0,0 +1,23 @@
+package scanner;
+
+/**
+ * TokenType lists every kind of token the scanner can produce. Keywords and operators
+ * each have their own kind so that the parser can switch on a token instead of
+ * comparing its text.
+ *
+ * @author Montek Kalsi
+ * @version 10/17/26
+ */
+public enum TokenType
+{
+    NUMBER, IDENTIFIER,
+
+    BEGIN, END, WHILE, DO, IF, THEN, VAR, PROCEDURE, WRITELN, MOD,
+
+    PLUS, MINUS, TIMES, DIVIDE, PERCENT, EQUAL, LPAREN, RPAREN, DOT, COLON, SEMICOLON,
+    GREATER, LESS, DOLLAR, CARET, AT, COMMA,
+
+    ASSIGN, LESS_EQUAL, GREATER_EQUAL, NOT_EQUAL,
+
+    EOF
+}
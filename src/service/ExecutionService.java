@@ -0,0 +1,222 @@
+package service;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import ast.Program;
+import environment.Environment;
+import output.CollectingSink;
+
+/**
+ * ExecutionService runs many jobs, each a Program with its own inputs, concurrently. Every
+ * job gets its own Environment, whose globals start at the job's inputs and whose output
+ * is captured for that job alone, so jobs can share one parsed Program.
+ *
+ * Jobs run on virtual threads when the JVM has them, one thread per job, and otherwise
+ * on a fixed pool of platform threads. Either way at most capacity jobs are queued or
+ * running at once: submit blocks until one ends and trySubmit refuses, which pushes back
+ * on whoever is submitting instead of letting the queue grow without bound.
+ *
+ * @author Montek Kalsi
+ * @version 10/17/26
+ */
+public class ExecutionService implements AutoCloseable
+{
+    private final ExecutorService executor;
+    private final boolean virtualThreads;
+    private final Semaphore permits;
+    private final ServiceMetrics metrics;
+
+    /**
+     * Constructs a service with one platform thread per processor as its fallback.
+     * @param capacity the most jobs that can be queued or running at once
+     */
+    public ExecutionService(int capacity)
+    {
+        this(capacity, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructs a service.
+     * @param capacity the most jobs that can be queued or running at once
+     * @param threads the number of platform threads used if there are no virtual threads
+     */
+    public ExecutionService(int capacity, int threads)
+    {
+        ExecutorService virtual = virtualExecutor();
+        virtualThreads = virtual != null;
+        executor = virtualThreads ? virtual : Executors.newFixedThreadPool(threads);
+        permits = new Semaphore(capacity);
+        metrics = new ServiceMetrics();
+    }
+
+    /**
+     * Creates an executor that starts a virtual thread per task, looked up reflectively
+     * so that the service still runs on JVMs without virtual threads.
+     * @return the executor, or null if virtual threads are not available
+     */
+    private static ExecutorService virtualExecutor()
+    {
+        try
+        {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        }
+        catch (ReflectiveOperationException | UnsupportedOperationException e)
+        {
+            return null;
+        }
+    }
+
+    /**
+     * Checks whether jobs run on virtual threads.
+     * @return true if they do
+     */
+    public boolean usesVirtualThreads()
+    {
+        return virtualThreads;
+    }
+
+    /**
+     * Outputs the service's metrics.
+     * @return the metrics
+     */
+    public ServiceMetrics getMetrics()
+    {
+        return metrics;
+    }
+
+    /**
+     * Submits a job, waiting while the service is full.
+     * @param program the program to run
+     * @param inputs the starting values of globals; any global not named starts at 0
+     * @return the job's result, once it ends
+     * @throws InterruptedException if interrupted while waiting for room
+     * @throws IllegalArgumentException if an input does not name a global
+     */
+    public Future<JobResult> submit(Program program, Map<String, Integer> inputs)
+            throws InterruptedException
+    {
+        long submitted = System.nanoTime();
+        checkInputs(program, inputs);
+        permits.acquire();
+        return start(program, inputs, submitted);
+    }
+
+    /**
+     * Submits a job unless the service is full.
+     * @param program the program to run
+     * @param inputs the starting values of globals; any global not named starts at 0
+     * @return the job's result once it ends, or null if the service was full
+     * @throws IllegalArgumentException if an input does not name a global
+     */
+    public Future<JobResult> trySubmit(Program program, Map<String, Integer> inputs)
+    {
+        long submitted = System.nanoTime();
+        checkInputs(program, inputs);
+        if (!permits.tryAcquire())
+            return null;
+        return start(program, inputs, submitted);
+    }
+
+    /**
+     * Checks that every input names a global of the program, resolving it if needed.
+     * @param program the program
+     * @param inputs the starting values of globals
+     * @throws IllegalArgumentException if an input does not name a global
+     */
+    private static void checkInputs(Program program, Map<String, Integer> inputs)
+    {
+        program.resolve();
+        for (String name : inputs.keySet())
+            if (!program.getGlobals().contains(name))
+                throw new IllegalArgumentException("no global named " + name);
+    }
+
+    /**
+     * Hands a job that holds a permit to the executor.
+     * @param program the program to run
+     * @param inputs the starting values of globals
+     * @param submitted the time the job was submitted, from System.nanoTime
+     * @return the job's result, once it ends
+     */
+    private Future<JobResult> start(Program program, Map<String, Integer> inputs,
+            long submitted)
+    {
+        // recorded first, so a job that ends at once never makes in-flight negative
+        metrics.recordSubmitted();
+        try
+        {
+            return executor.submit(() -> run(program, inputs, submitted));
+        }
+        catch (RejectedExecutionException e)
+        {
+            metrics.recordRejected();
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Runs one job in a fresh Environment and gives back its permit.
+     * @param program the program to run
+     * @param inputs the starting values of globals
+     * @param submitted the time the job was submitted, from System.nanoTime
+     * @return what the job produced
+     */
+    private JobResult run(Program program, Map<String, Integer> inputs, long submitted)
+    {
+        CollectingSink captured = new CollectingSink();
+        Environment env = new Environment();
+        env.setOutput(captured);
+        Map<String, Integer> globals = new LinkedHashMap<String, Integer>();
+        Throwable error = null;
+        try
+        {
+            program.resolve();
+            for (Map.Entry<String, Integer> input : inputs.entrySet())
+                env.declareVariable(input.getKey(), input.getValue());
+            program.exec(env);
+            for (String name : program.getGlobals())
+                globals.put(name, env.getVariable(name));
+        }
+        catch (RuntimeException | StackOverflowError e)
+        {
+            error = e;
+        }
+        finally
+        {
+            permits.release();
+        }
+        long latency = System.nanoTime() - submitted;
+        metrics.recordCompleted(latency, error == null);
+        return new JobResult(captured.getText(),
+                Collections.unmodifiableMap(globals), latency, error);
+    }
+
+    /**
+     * Stops accepting jobs and waits for the accepted ones to end. If the waiting thread
+     * is interrupted, it stops waiting and keeps its interrupt status set.
+     */
+    public void close()
+    {
+        executor.shutdown();
+        try
+        {
+            while (!executor.awaitTermination(1, TimeUnit.SECONDS))
+                ;
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package service;
+
+import java.util.Map;
+
+/**
+ * A JobResult holds what one job of an ExecutionService produced: the lines it printed,
+ * the final values of its globals, how long it took from submission to completion, and
+ * the exception that stopped it, if any.
+ *
+ * @author Montek Kalsi
+ * @version 10/17/26
+ */
+public class JobResult
+{
+    private String output;
+    private Map<String, Integer> globals;
+    private long latency;
+    private Throwable error;
+
+    /**
+     * Constructs a result.
+     * @param output everything the job printed
+     * @param globals the final value of each global
+     * @param latency the nanoseconds from submission to completion
+     * @param error the exception that stopped the job, or null if it finished
+     */
+    public JobResult(String output, Map<String, Integer> globals, long latency,
+            Throwable error)
+    {
+        this.output = output;
+        this.globals = globals;
+        this.latency = latency;
+        this.error = error;
+    }
+
+    /**
+     * Outputs everything the job printed, one value per line.
+     * @return the output
+     */
+    public String getOutput()
+    {
+        return output;
+    }
+
+    /**
+     * Outputs the final value of each global.
+     * @return the globals by name
+     */
+    public Map<String, Integer> getGlobals()
+    {
+        return globals;
+    }
+
+    /**
+     * Outputs the time from submission to completion, including time spent queued.
+     * @return the latency in nanoseconds
+     */
+    public long getLatency()
+    {
+        return latency;
+    }
+
+    /**
+     * Outputs the exception that stopped the job.
+     * @return the exception, or null if the job finished
+     */
+    public Throwable getError()
+    {
+        return error;
+    }
+
+    /**
+     * Checks whether the job finished without an exception.
+     * @return true if it finished
+     */
+    public boolean isSuccess()
+    {
+        return error == null;
+    }
+}
@@ -0,0 +1,182 @@
+package service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ServiceMetrics counts the jobs of an ExecutionService and records their latencies.
+ * Counters are LongAdders so that many jobs finishing at once do not contend, and
+ * latencies go into a histogram with one bucket per power of two nanoseconds, which is
+ * fine enough to read percentiles for sizing the service.
+ *
+ * @author Montek Kalsi
+ * @version 10/17/26
+ */
+public class ServiceMetrics
+{
+    private static final int BUCKETS = 64;
+
+    private final long start;
+    private final LongAdder submitted;
+    private final LongAdder completed;
+    private final LongAdder failed;
+    private final LongAdder totalLatency;
+    private final LongAccumulator maxLatency;
+    private final AtomicLongArray histogram;
+
+    /**
+     * Constructs metrics whose throughput is measured from now.
+     */
+    public ServiceMetrics()
+    {
+        start = System.nanoTime();
+        submitted = new LongAdder();
+        completed = new LongAdder();
+        failed = new LongAdder();
+        totalLatency = new LongAdder();
+        maxLatency = new LongAccumulator(Math::max, 0);
+        histogram = new AtomicLongArray(BUCKETS);
+    }
+
+    /**
+     * Records that a job was accepted.
+     */
+    void recordSubmitted()
+    {
+        submitted.increment();
+    }
+
+    /**
+     * Takes back a submission that the executor then refused.
+     */
+    void recordRejected()
+    {
+        submitted.decrement();
+    }
+
+    /**
+     * Records that a job ended.
+     * @param latency the nanoseconds from submission to completion
+     * @param success true if the job finished without an exception
+     */
+    void recordCompleted(long latency, boolean success)
+    {
+        completed.increment();
+        if (!success)
+            failed.increment();
+        totalLatency.add(latency);
+        maxLatency.accumulate(latency);
+        histogram.incrementAndGet(BUCKETS - Long.numberOfLeadingZeros(Math.max(latency, 1)));
+    }
+
+    /**
+     * Outputs the number of jobs accepted.
+     * @return the number submitted
+     */
+    public long getSubmitted()
+    {
+        return submitted.sum();
+    }
+
+    /**
+     * Outputs the number of jobs that have ended, successfully or not.
+     * @return the number completed
+     */
+    public long getCompleted()
+    {
+        return completed.sum();
+    }
+
+    /**
+     * Outputs the number of jobs that ended with an exception.
+     * @return the number failed
+     */
+    public long getFailed()
+    {
+        return failed.sum();
+    }
+
+    /**
+     * Outputs the number of jobs accepted but not yet ended.
+     * @return the number queued or running
+     */
+    public long getInFlight()
+    {
+        return submitted.sum() - completed.sum();
+    }
+
+    /**
+     * Outputs the completed jobs per second since the metrics were created.
+     * @return the throughput
+     */
+    public double getThroughput()
+    {
+        long elapsed = Math.max(System.nanoTime() - start, 1);
+        return completed.sum() * 1e9 / elapsed;
+    }
+
+    /**
+     * Outputs the completed jobs per second for each available processor.
+     * @return the throughput per core
+     */
+    public double getThroughputPerCore()
+    {
+        return getThroughput() / Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Outputs the mean latency of the completed jobs.
+     * @return the mean in nanoseconds, or 0 if none has completed
+     */
+    public long getMeanLatency()
+    {
+        long count = completed.sum();
+        return count == 0 ? 0 : totalLatency.sum() / count;
+    }
+
+    /**
+     * Outputs the largest latency of any completed job.
+     * @return the maximum in nanoseconds
+     */
+    public long getMaxLatency()
+    {
+        return maxLatency.get();
+    }
+
+    /**
+     * Estimates a latency percentile as the upper bound of the histogram bucket that
+     * holds it, so the estimate is at most twice the true value and never more than the
+     * maximum.
+     * @param percentile the percentile, from 0 to 100
+     * @return the latency in nanoseconds, or 0 if no job has completed
+     */
+    public long getLatencyPercentile(double percentile)
+    {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++)
+            total += histogram.get(i);
+        long rank = (long) Math.ceil(total * percentile / 100);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++)
+        {
+            seen += histogram.get(i);
+            if (seen >= rank && seen > 0)
+                return Math.min((1L << Math.min(i, BUCKETS - 2)) - 1, getMaxLatency());
+        }
+        return 0;
+    }
+
+    /**
+     * Summarizes the metrics on one line.
+     * @return the summary
+     */
+    public String toString()
+    {
+        return String.format("completed=%d failed=%d inFlight=%d jobs/s=%.1f jobs/s/core=%.1f "
+                + "mean=%dus p50<=%dus p99<=%dus max=%dus", getCompleted(), getFailed(),
+                getInFlight(), getThroughput(), getThroughputPerCore(),
+                getMeanLatency() / 1000, getLatencyPercentile(50) / 1000,
+                getLatencyPercentile(99) / 1000, getMaxLatency() / 1000);
+    }
+}
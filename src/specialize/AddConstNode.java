@@ -0,0 +1,41 @@
+package specialize;
+
+import ast.BinOp;
+import ast.Expression;
+import ast.Number;
+import environment.Environment;
+
+/**
+ * AddConstNode is the constant-operand form of addition and subtraction: x + c, c + x
+ * and x - c all become x + c, so only one operand is evaluated.
+ *
+ * @author Montek Kalsi
+ * @version 10/17/26
+ */
+public final class AddConstNode extends BinOp
+{
+    private final Expression left;
+    private final int constant;
+
+    /**
+     * Constructs the node from its specialized operand and the constant added to it.
+     * @param left the operand
+     * @param constant the constant
+     */
+    public AddConstNode(Expression left, int constant)
+    {
+        super("+", left, new Number(constant));
+        this.left = left;
+        this.constant = constant;
+    }
+
+    /**
+     * Evaluates the operand and adds the constant.
+     * @param env the environment where it is evaluated
+     * @return the sum
+     */
+    public int eval(Environment env)
+    {
+        return left.eval(env) + constant;
+    }
+}
@@ -0,0 +1,36 @@
+package specialize;
+
+import ast.Number;
+import environment.Environment;
+
+/**
+ * ConstNode is a final Number whose value is a final field, so a call to its eval can be
+ * inlined down to the constant.
+ *
+ * @author Montek Kalsi
+ * @version 10/17/26
+ */
+public final class ConstNode extends Number
+{
+    private final int value;
+
+    /**
+     * Constructs the node.
+     * @param value the constant
+     */
+    public ConstNode(int value)
+    {
+        super(value);
+        this.value = value;
+    }
+
+    /**
+     * Outputs the constant.
+     * @param env the environment, which is not used
+     * @return the constant
+     */
+    public int eval(Environment env)
+    {
+        return value;
+    }
+}
@@ -0,0 +1,39 @@
+package specialize;
+
+import ast.BinOp;
+import ast.Expression;
+import environment.Environment;
+
+/**
+ * DivNode evaluates left / right with no operator dispatch.
+ *
+ * @author Montek Kalsi
+ * @version 10/17/26
+ */
+public final class DivNode extends BinOp
+{
+    private final Expression left;
+    private final Expression right;
+
+    /**
+     * Constructs the node from its already specialized operands.
+     * @param left the left operand
+     * @param right the right operand
+     */
+    public DivNode(Expression left, Expression right)
+    {
+        super("/", left, right);
+        this.left = left;
+        this.right = right;
+    }
+
+    /**
+     * Evaluates both operands and outputs the quotient of them.
+     * @param env the environment where it is evaluated
+     * @return the quotient
+     */
+    public int eval(Environment env)
+    {
+        return left.eval(env) / right.eval(env);
+    }
+}
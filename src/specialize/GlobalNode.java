@@ -0,0 +1,41 @@
+package specialize;
+
+import ast.Variable;
+import environment.Environment;
+
+/**
+ * GlobalNode reads a variable that the Resolver placed in an enclosing Environment, which
+ * is how a procedure reads a global.
+ *
+ * @author Montek Kalsi
+ * @version 10/17/26
+ */
+public final class GlobalNode extends Variable
+{
+    private final int depth;
+    private final int slot;
+
+    /**
+     * Constructs the node.
+     * @param name the name of the variable
+     * @param depth the number of parents to walk up
+     * @param slot its slot in that Environment
+     */
+    public GlobalNode(String name, int depth, int slot)
+    {
+        super(name);
+        resolve(depth, slot);
+        this.depth = depth;
+        this.slot = slot;
+    }
+
+    /**
+     * Reads the variable's slot.
+     * @param env the current environment
+     * @return the value of the variable
+     */
+    public int eval(Environment env)
+    {
+        return env.getSlot(depth, slot);
+    }
+}
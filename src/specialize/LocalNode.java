@@ -0,0 +1,38 @@
+package specialize;
+
+import ast.Variable;
+import environment.Environment;
+
+/**
+ * LocalNode reads a variable that the Resolver placed in the current Environment: a
+ * procedure's argument or local, or a global read by the main statement.
+ *
+ * @author Montek Kalsi
+ * @version 10/17/26
+ */
+public final class LocalNode extends Variable
+{
+    private final int slot;
+
+    /**
+     * Constructs the node.
+     * @param name the name of the variable
+     * @param slot its slot in the current Environment
+     */
+    public LocalNode(String name, int slot)
+    {
+        super(name);
+        resolve(0, slot);
+        this.slot = slot;
+    }
+
+    /**
+     * Reads the variable's slot.
+     * @param env the current environment
+     * @return the value of the variable
+     */
+    public int eval(Environment env)
+    {
+        return env.getLocal(slot);
+    }
+}
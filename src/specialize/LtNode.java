@@ -0,0 +1,39 @@
+package specialize;
+
+import ast.Condition;
+import ast.Expression;
+import environment.Environment;
+
+/**
+ * LtNode tests left < right with no operator dispatch.
+ *
+ * @author Montek Kalsi
+ * @version 10/17/26
+ */
+public final class LtNode extends Condition
+{
+    private final Expression left;
+    private final Expression right;
+
+    /**
+     * Constructs the node from its already specialized operands.
+     * @param left the left operand
+     * @param right the right operand
+     */
+    public LtNode(Expression left, Expression right)
+    {
+        super("<", left, right);
+        this.left = left;
+        this.right = right;
+    }
+
+    /**
+     * Evaluates both operands and compares them.
+     * @param env the environment where it is evaluated
+     * @return 1 if left is less than right, otherwise 0
+     */
+    public int eval(Environment env)
+    {
+        return left.eval(env) < right.eval(env) ? 1 : 0;
+    }
+}
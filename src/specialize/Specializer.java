@@ -0,0 +1,103 @@
+package specialize;
+
+import ast.*;
+import ast.Number;
+
+/**
+ * Specializer rewrites a resolved Program into one built from specialized nodes. Each
+ * BinOp and Condition becomes a node class for its one operator, additions with a
+ * constant operand become AddConstNode, and each Variable becomes a node that reads its
+ * slot directly. Every eval call site then sees only a few final classes, which HotSpot
+ * can inline, instead of one class that picks its operator on every call.
+ *
+ * The specialized nodes extend the classes they replace, so the rewritten Program can
+ * still be compiled to MIPS or handed to any other backend. Statements and calls are
+ * copied unchanged by the Rewriter.
+ *
+ * @author Montek Kalsi
+ * @version 10/17/26
+ */
+public class Specializer extends Rewriter
+{
+    /**
+     * Builds a specialized copy of a Program, resolving the Program first if needed.
+     * The original Program is left unchanged.
+     * @param program the program
+     * @return the specialized program
+     */
+    public static Program specialize(Program program)
+    {
+        return new Specializer().rewrite(program);
+    }
+
+    /**
+     * Specializes a condition into the node for its operator.
+     * @param cond the condition
+     * @return the specialized condition
+     */
+    protected Condition condition(Condition cond)
+    {
+        Expression left = expression(cond.getLeft());
+        Expression right = expression(cond.getRight());
+        switch (cond.getOperator())
+        {
+            case "=": return new EqNode(left, right);
+            case "<>": return new NeNode(left, right);
+            case "<": return new LtNode(left, right);
+            case ">": return new GtNode(left, right);
+            case "<=": return new LeNode(left, right);
+            default: return new GeNode(left, right);
+        }
+    }
+
+    /**
+     * Specializes an expression.
+     * @param exp the expression
+     * @return the specialized expression
+     */
+    protected Expression expression(Expression exp)
+    {
+        if (exp instanceof Number)
+            return new ConstNode(((Number) exp).getValue());
+        if (exp instanceof Variable)
+        {
+            Variable var = (Variable) exp;
+            if (var.getDepth() == 0)
+                return new LocalNode(var.getName(), var.getSlot());
+            return new GlobalNode(var.getName(), var.getDepth(), var.getSlot());
+        }
+        if (exp instanceof Condition)
+            return condition((Condition) exp);
+        if (exp instanceof BinOp)
+            return binOp((BinOp) exp);
+        return super.expression(exp);
+    }
+
+    /**
+     * Specializes an arithmetic expression into the node for its operator, or into its
+     * constant-operand form.
+     * @param bin the expression
+     * @return the specialized expression
+     */
+    private Expression binOp(BinOp bin)
+    {
+        Expression left = expression(bin.getLeft());
+        Expression right = expression(bin.getRight());
+        switch (bin.getOperator())
+        {
+            case "+":
+                if (right instanceof ConstNode)
+                    return new AddConstNode(left, ((ConstNode) right).getValue());
+                if (left instanceof ConstNode)
+                    return new AddConstNode(right, ((ConstNode) left).getValue());
+                return new AddNode(left, right);
+            case "-":
+                if (right instanceof ConstNode)
+                    return new AddConstNode(left, -((ConstNode) right).getValue());
+                return new SubNode(left, right);
+            case "*": return new MulNode(left, right);
+            case "/": return new DivNode(left, right);
+            default: return new ModNode(left, right);
+        }
+    }
+}
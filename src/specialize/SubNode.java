@@ -0,0 +1,39 @@
+package specialize;
+
+import ast.BinOp;
+import ast.Expression;
+import environment.Environment;
+
+/**
+ * SubNode evaluates left - right with no operator dispatch.
+ *
+ * @author Montek Kalsi
+ * @version 10/17/26
+ */
+public final class SubNode extends BinOp
+{
+    private final Expression left;
+    private final Expression right;
+
+    /**
+     * Constructs the node from its already specialized operands.
+     * @param left the left operand
+     * @param right the right operand
+     */
+    public SubNode(Expression left, Expression right)
+    {
+        super("-", left, right);
+        this.left = left;
+        this.right = right;
+    }
+
+    /**
+     * Evaluates both operands and outputs the difference of them.
+     * @param env the environment where it is evaluated
+     * @return the difference
+     */
+    public int eval(Environment env)
+    {
+        return left.eval(env) - right.eval(env);
+    }
+}
@@ -0,0 +1,117 @@
+package vm;
+
+import java.util.List;
+
+/**
+ * Bytecode is a Program compiled into one int array of instructions for the
+ * VirtualMachine. Each instruction is an opcode followed by its operands. The main
+ * statement starts at 0 and ends with HALT; each procedure follows, starting at its entry
+ * point and ending with RETURN.
+ *
+ * A call leaves a frame on the operand stack: slot 0 holds the return value, the
+ * arguments are in the next slots and the local variables follow, as laid out by the
+ * Resolver. RETURN drops everything above slot 0, so the return value is left on the
+ * stack where the caller pushed its placeholder.
+ *
+ * @author Montek Kalsi
+ * @version 10/17/26
+ */
+public class Bytecode
+{
+    public static final int HALT = 0;           // stop
+    public static final int PUSH = 1;           // value: push value
+    public static final int LOAD_LOCAL = 2;     // slot: push frame[slot]
+    public static final int STORE_LOCAL = 3;    // slot: pop into frame[slot]
+    public static final int LOAD_GLOBAL = 4;    // slot: push globals[slot]
+    public static final int STORE_GLOBAL = 5;   // slot: pop into globals[slot]
+    public static final int ADD = 6;            // pop b, pop a, push a + b
+    public static final int SUB = 7;
+    public static final int MUL = 8;
+    public static final int DIV = 9;
+    public static final int MOD = 10;
+    public static final int EQ = 11;            // pop b, pop a, push 1 if a = b, else 0
+    public static final int NE = 12;
+    public static final int LT = 13;
+    public static final int GT = 14;
+    public static final int LE = 15;
+    public static final int GE = 16;
+    public static final int JUMP = 17;          // target: continue at target
+    public static final int JEQ = 18;           // target: pop b, pop a, jump if a = b
+    public static final int JNE = 19;
+    public static final int JLT = 20;
+    public static final int JGT = 21;
+    public static final int JLE = 22;
+    public static final int JGE = 23;
+    public static final int CALL = 24;          // procedure: call with its arguments on the stack
+    public static final int RETURN = 25;        // return to the caller
+    public static final int PRINT = 26;         // pop a and print it
+
+    private int[] code;
+    private int[] entry;
+    private int[] argCount;
+    private int[] frameSize;
+    private List<String> globals;
+
+    /**
+     * Constructs compiled bytecode.
+     * @param code the instructions
+     * @param entry the entry point of each procedure
+     * @param argCount the number of arguments of each procedure
+     * @param frameSize the number of frame slots of each procedure
+     * @param globals the names of the globals, in slot order
+     */
+    public Bytecode(int[] code, int[] entry, int[] argCount, int[] frameSize,
+            List<String> globals)
+    {
+        this.code = code;
+        this.entry = entry;
+        this.argCount = argCount;
+        this.frameSize = frameSize;
+        this.globals = globals;
+    }
+
+    /**
+     * Outputs the instructions.
+     * @return the code array
+     */
+    public int[] getCode()
+    {
+        return code;
+    }
+
+    /**
+     * Outputs the entry point of each procedure.
+     * @return the entry points, indexed by procedure
+     */
+    public int[] getEntry()
+    {
+        return entry;
+    }
+
+    /**
+     * Outputs the number of arguments of each procedure.
+     * @return the argument counts, indexed by procedure
+     */
+    public int[] getArgCount()
+    {
+        return argCount;
+    }
+
+    /**
+     * Outputs the number of frame slots of each procedure.
+     * @return the frame sizes, indexed by procedure
+     */
+    public int[] getFrameSize()
+    {
+        return frameSize;
+    }
+
+    /**
+     * Outputs the names of the globals.
+     * @return the globals, in slot order
+     */
+    public List<String> getGlobals()
+    {
+        return globals;
+    }
+}
@@ -0,0 +1,229 @@
+package vm;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import ast.*;
+import ast.Number;
+
+/**
+ * BytecodeCompiler translates a resolved Program into Bytecode. Variables are compiled
+ * from the slots the Resolver gave them, so the VirtualMachine never sees a name.
+ * Conditions of IF and WHILE statements compile to a single compare-and-branch
+ * instruction that jumps when the condition is false.
+ *
+ * @author Montek Kalsi
+ * @version 10/17/26
+ */
+public class BytecodeCompiler
+{
+    private int[] code = new int[256];
+    private int size;
+    private Map<ProcedureDeclaration,Integer> procedures =
+            new IdentityHashMap<ProcedureDeclaration,Integer>();
+    private boolean inProcedure;
+
+    /**
+     * Compiles a Program, resolving it first if it has not been resolved.
+     * @param program the program to compile
+     * @return the compiled bytecode
+     */
+    public static Bytecode compile(Program program)
+    {
+        program.resolve();
+        BytecodeCompiler c = new BytecodeCompiler();
+        List<ProcedureDeclaration> procs = program.getProcedures();
+        int[] entry = new int[procs.size()];
+        int[] argCount = new int[procs.size()];
+        int[] frameSize = new int[procs.size()];
+        for (int p = 0; p < procs.size(); p++)
+        {
+            c.procedures.put(procs.get(p), p);
+            argCount[p] = procs.get(p).getArgs().size();
+            frameSize[p] = procs.get(p).getFrameSize();
+        }
+        c.statement(program.getStatement());
+        c.emit(Bytecode.HALT);
+        c.inProcedure = true;
+        for (int p = 0; p < procs.size(); p++)
+        {
+            entry[p] = c.size;
+            c.statement(procs.get(p).getStmt());
+            c.emit(Bytecode.RETURN);
+        }
+        int[] code = new int[c.size];
+        System.arraycopy(c.code, 0, code, 0, c.size);
+        return new Bytecode(code, entry, argCount, frameSize, program.getGlobals());
+    }
+
+    /**
+     * Appends one word of code.
+     * @param word the opcode or operand
+     */
+    private void emit(int word)
+    {
+        if (size == code.length)
+        {
+            int[] grown = new int[size * 2];
+            System.arraycopy(code, 0, grown, 0, size);
+            code = grown;
+        }
+        code[size++] = word;
+    }
+
+    /**
+     * Appends an instruction with one operand.
+     * @param op the opcode
+     * @param operand the operand
+     */
+    private void emit(int op, int operand)
+    {
+        emit(op);
+        emit(operand);
+    }
+
+    /**
+     * Compiles a statement.
+     * @param stmt the statement
+     */
+    private void statement(Statement stmt)
+    {
+        if (stmt instanceof Writeln)
+        {
+            expression(((Writeln) stmt).getExpression());
+            emit(Bytecode.PRINT);
+        }
+        else if (stmt instanceof Assignment)
+        {
+            Assignment assign = (Assignment) stmt;
+            expression(assign.getExpression());
+            if (inProcedure && assign.getDepth() == 0)
+                emit(Bytecode.STORE_LOCAL, assign.getSlot());
+            else
+                emit(Bytecode.STORE_GLOBAL, assign.getSlot());
+        }
+        else if (stmt instanceof Block)
+        {
+            for (Statement s : ((Block) stmt).getStatements())
+                statement(s);
+        }
+        else if (stmt instanceof If)
+        {
+            If ifStmt = (If) stmt;
+            int skip = branchIfFalse(ifStmt.getCondition());
+            statement(ifStmt.getStatement());
+            if (ifStmt.getElse() != null)
+            {
+                emit(Bytecode.JUMP, 0);
+                int done = size - 1;
+                code[skip] = size;
+                statement(ifStmt.getElse());
+                code[done] = size;
+            }
+            else
+                code[skip] = size;
+        }
+        else if (stmt instanceof While)
+        {
+            While loop = (While) stmt;
+            int top = size;
+            int exit = branchIfFalse(loop.getCondition());
+            statement(loop.getStatement());
+            emit(Bytecode.JUMP, top);
+            code[exit] = size;
+        }
+        else
+            throw new IllegalArgumentException("cannot compile "
+                    + stmt.getClass().getSimpleName());
+    }
+
+    /**
+     * Compiles a condition into a branch taken when it is false.
+     * @param cond the condition
+     * @return the index of the branch target, to be patched by the caller
+     */
+    private int branchIfFalse(Condition cond)
+    {
+        expression(cond.getLeft());
+        expression(cond.getRight());
+        switch (cond.getOperator())
+        {
+            case "=": emit(Bytecode.JNE, 0); break;
+            case "<>": emit(Bytecode.JEQ, 0); break;
+            case "<": emit(Bytecode.JGE, 0); break;
+            case ">": emit(Bytecode.JLE, 0); break;
+            case "<=": emit(Bytecode.JGT, 0); break;
+            default: emit(Bytecode.JLT, 0); break;
+        }
+        return size - 1;
+    }
+
+    /**
+     * Compiles an expression, leaving its value on the stack.
+     * @param exp the expression
+     */
+    private void expression(Expression exp)
+    {
+        if (exp instanceof Number)
+            emit(Bytecode.PUSH, ((Number) exp).getValue());
+        else if (exp instanceof Variable)
+        {
+            Variable var = (Variable) exp;
+            if (inProcedure && var.getDepth() == 0)
+                emit(Bytecode.LOAD_LOCAL, var.getSlot());
+            else
+                emit(Bytecode.LOAD_GLOBAL, var.getSlot());
+        }
+        else if (exp instanceof BinOp)
+        {
+            BinOp bin = (BinOp) exp;
+            expression(bin.getLeft());
+            expression(bin.getRight());
+            emit(operator(bin.getOperator()));
+        }
+        else if (exp instanceof Condition)
+        {
+            Condition cond = (Condition) exp;
+            expression(cond.getLeft());
+            expression(cond.getRight());
+            emit(operator(cond.getOperator()));
+        }
+        else if (exp instanceof ProcedureCall)
+        {
+            ProcedureCall call = (ProcedureCall) exp;
+            emit(Bytecode.PUSH, 0);
+            for (Expression arg : call.getArgs())
+                expression(arg);
+            emit(Bytecode.CALL, procedures.get(call.getDeclaration()));
+        }
+        else
+            throw new IllegalArgumentException("cannot compile "
+                    + exp.getClass().getSimpleName());
+    }
+
+    /**
+     * Maps a BinOp or Condition operator to its opcode.
+     * @param op the operator
+     * @return the opcode
+     */
+    private static int operator(String op)
+    {
+        switch (op)
+        {
+            case "+": return Bytecode.ADD;
+            case "-": return Bytecode.SUB;
+            case "*": return Bytecode.MUL;
+            case "/": return Bytecode.DIV;
+            case "%": return Bytecode.MOD;
+            case "=": return Bytecode.EQ;
+            case "<>": return Bytecode.NE;
+            case "<": return Bytecode.LT;
+            case ">": return Bytecode.GT;
+            case "<=": return Bytecode.LE;
+            case ">=": return Bytecode.GE;
+            default:
+                throw new IllegalArgumentException("unknown operator " + op);
+        }
+    }
+}
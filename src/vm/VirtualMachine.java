@@ -0,0 +1,225 @@
+package vm;
+
+import java.util.Arrays;
+
+import output.BufferedSink;
+import output.OutputSink;
+
+/**
+ * VirtualMachine runs Bytecode with a single switch-dispatch loop. The operand stack
+ * also holds the frames of procedure calls, and a separate call stack holds each
+ * caller's return address and frame pointer. The program counter, stack pointer and
+ * frame pointer are local variables of the loop, so dispatch never touches a field.
+ *
+ * @author Montek Kalsi
+ * @version 10/17/26
+ */
+public class VirtualMachine
+{
+    private Bytecode bytecode;
+    private int[] globals;
+    private int stackSize;
+    private int[] stack;
+    private int[] calls;
+    private OutputSink output;
+
+    /**
+     * Constructs a machine with a stack of one million words.
+     * @param bytecode the program to run
+     */
+    public VirtualMachine(Bytecode bytecode)
+    {
+        this(bytecode, 1 << 20);
+    }
+
+    /**
+     * Constructs a machine.
+     * @param bytecode the program to run
+     * @param stackSize the number of words in the operand stack; the call stack gets
+     * half as many entries
+     */
+    public VirtualMachine(Bytecode bytecode, int stackSize)
+    {
+        this.bytecode = bytecode;
+        this.stackSize = stackSize;
+        globals = new int[bytecode.getGlobals().size()];
+    }
+
+    /**
+     * Outputs the value of a global after running.
+     * @param name the name of the global
+     * @return its value
+     */
+    public int getGlobal(String name)
+    {
+        return globals[bytecode.getGlobals().indexOf(name)];
+    }
+
+    /**
+     * Sets where PRINT writes; by default it is a buffered sink on System.out.
+     * @param output the sink
+     */
+    public void setOutput(OutputSink output)
+    {
+        this.output = output;
+    }
+
+    /**
+     * Runs the program from its first instruction until HALT, then flushes the output.
+     * Every global starts at 0, so a machine can be run many times. The stacks are
+     * allocated on the first run and reused by later ones.
+     * @throws IllegalStateException if the program recurses deeper than the stacks allow
+     */
+    public void run()
+    {
+        final int[] code = bytecode.getCode();
+        final int[] entry = bytecode.getEntry();
+        final int[] argCount = bytecode.getArgCount();
+        final int[] frameSize = bytecode.getFrameSize();
+        final int[] globals = this.globals;
+        Arrays.fill(globals, 0);
+        if (stack == null)
+        {
+            stack = new int[stackSize];
+            calls = new int[stackSize / 2];
+        }
+        final int[] stack = this.stack;
+        final int[] calls = this.calls;
+        if (output == null)
+            output = new BufferedSink(System.out);
+        final OutputSink output = this.output;
+        int pc = 0;
+        int sp = 0;
+        int fp = 0;
+        int cp = 0;
+        try
+        {
+            while (true)
+            {
+                switch (code[pc++])
+                {
+                    case Bytecode.HALT:
+                        return;
+                    case Bytecode.PUSH:
+                        stack[sp++] = code[pc++];
+                        break;
+                    case Bytecode.LOAD_LOCAL:
+                        stack[sp++] = stack[fp + code[pc++]];
+                        break;
+                    case Bytecode.STORE_LOCAL:
+                        stack[fp + code[pc++]] = stack[--sp];
+                        break;
+                    case Bytecode.LOAD_GLOBAL:
+                        stack[sp++] = globals[code[pc++]];
+                        break;
+                    case Bytecode.STORE_GLOBAL:
+                        globals[code[pc++]] = stack[--sp];
+                        break;
+                    case Bytecode.ADD:
+                        sp--;
+                        stack[sp - 1] += stack[sp];
+                        break;
+                    case Bytecode.SUB:
+                        sp--;
+                        stack[sp - 1] -= stack[sp];
+                        break;
+                    case Bytecode.MUL:
+                        sp--;
+                        stack[sp - 1] *= stack[sp];
+                        break;
+                    case Bytecode.DIV:
+                        sp--;
+                        stack[sp - 1] /= stack[sp];
+                        break;
+                    case Bytecode.MOD:
+                        sp--;
+                        stack[sp - 1] %= stack[sp];
+                        break;
+                    case Bytecode.EQ:
+                        sp--;
+                        stack[sp - 1] = stack[sp - 1] == stack[sp] ? 1 : 0;
+                        break;
+                    case Bytecode.NE:
+                        sp--;
+                        stack[sp - 1] = stack[sp - 1] != stack[sp] ? 1 : 0;
+                        break;
+                    case Bytecode.LT:
+                        sp--;
+                        stack[sp - 1] = stack[sp - 1] < stack[sp] ? 1 : 0;
+                        break;
+                    case Bytecode.GT:
+                        sp--;
+                        stack[sp - 1] = stack[sp - 1] > stack[sp] ? 1 : 0;
+                        break;
+                    case Bytecode.LE:
+                        sp--;
+                        stack[sp - 1] = stack[sp - 1] <= stack[sp] ? 1 : 0;
+                        break;
+                    case Bytecode.GE:
+                        sp--;
+                        stack[sp - 1] = stack[sp - 1] >= stack[sp] ? 1 : 0;
+                        break;
+                    case Bytecode.JUMP:
+                        pc = code[pc];
+                        break;
+                    case Bytecode.JEQ:
+                        sp -= 2;
+                        pc = stack[sp] == stack[sp + 1] ? code[pc] : pc + 1;
+                        break;
+                    case Bytecode.JNE:
+                        sp -= 2;
+                        pc = stack[sp] != stack[sp + 1] ? code[pc] : pc + 1;
+                        break;
+                    case Bytecode.JLT:
+                        sp -= 2;
+                        pc = stack[sp] < stack[sp + 1] ? code[pc] : pc + 1;
+                        break;
+                    case Bytecode.JGT:
+                        sp -= 2;
+                        pc = stack[sp] > stack[sp + 1] ? code[pc] : pc + 1;
+                        break;
+                    case Bytecode.JLE:
+                        sp -= 2;
+                        pc = stack[sp] <= stack[sp + 1] ? code[pc] : pc + 1;
+                        break;
+                    case Bytecode.JGE:
+                        sp -= 2;
+                        pc = stack[sp] >= stack[sp + 1] ? code[pc] : pc + 1;
+                        break;
+                    case Bytecode.CALL:
+                    {
+                        int proc = code[pc++];
+                        calls[cp++] = pc;
+                        calls[cp++] = fp;
+                        fp = sp - argCount[proc] - 1;
+                        int top = fp + frameSize[proc];
+                        while (sp < top)
+                            stack[sp++] = 0;
+                        pc = entry[proc];
+                        break;
+                    }
+                    case Bytecode.RETURN:
+                        sp = fp + 1;
+                        fp = calls[--cp];
+                        pc = calls[--cp];
+                        break;
+                    case Bytecode.PRINT:
+                        output.writeInt(stack[--sp]);
+                        break;
+                    default:
+                        throw new IllegalStateException("bad opcode " + code[pc - 1]);
+                }
+            }
+        }
+        catch (ArrayIndexOutOfBoundsException e)
+        {
+            if (sp >= stack.length - 1 || cp >= calls.length - 1)
+                throw new IllegalStateException("stack overflow", e);
+            throw e;
+        }
+        finally
+        {
+            output.flush();
+        }
+    }
+}